@@ -0,0 +1,235 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Runs the benchmarked operations against a KPopDatabaseManager, for the JMH benchmarks in
+ * {@code kpopdms.bench}.
+ *
+ * Every trial gets its own copy of a generated database, so no benchmark measures rows
+ * left behind by another. The generated templates are kept in the directory named by the
+ * {@code kpop.bench.dir} system property (a kpop-bench directory under the temporary
+ * directory by default), because generating a million groups takes much longer than copying them.
+ */
+public class KPopBenchmarkWorkload implements kpopdms.bench.Workload {
+    private static final String[] AGENCIES = {"HYBE", "SM Entertainment", "JYP Entertainment", "YG Entertainment",
+            "Starship", "Cube", "Pledis", "ADOR", "Woollim", "FNC", "RBW", "Jellyfish", "WM", "Fantagio", "DSP Media"};
+    private static final String[] STATUSES = {"active", "active", "active", "hiatus", "disbanded"};
+    private static final String[] SYLLABLES = {"ji", "min", "seo", "hyun", "soo", "yeon", "na", "ri", "jun",
+            "woo", "ha", "eun", "tae", "kyung", "a", "yu", "chan", "bin", "hee", "so"};
+
+    private final Random random = new Random(42);
+    private KPopDatabaseManager manager;
+    private File dbFile;
+    private int rows;
+    private int inserted;
+
+    @Override
+    public void open(int rows) throws Exception {
+        Path dir = Path.of(System.getProperty("kpop.bench.dir", System.getProperty("java.io.tmpdir") + "/kpop-bench"));
+        Files.createDirectories(dir);
+        Path template = dir.resolve("template-" + rows + ".db");
+        if (!Files.exists(template)) generate(template, rows);
+
+        dbFile = Files.createTempFile(dir, "kpop-bench-" + rows + "-", ".db").toFile();
+        Files.copy(template, dbFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        manager = new KPopDatabaseManager();
+        if (!manager.connect(dbFile.getPath())) throw new IOException("Cannot open " + dbFile);
+        this.rows = rows;
+    }
+
+    @Override
+    public void close() {
+        if (manager != null) manager.close();
+        manager = null;
+        if (dbFile != null) deleteDatabase(dbFile);
+        dbFile = null;
+    }
+
+    @Override
+    public boolean addGroup() {
+        return manager.addGroup(newGroup());
+    }
+
+    @Override
+    public int importGroups(int count) {
+        List<KPopGroup> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) batch.add(newGroup());
+        return manager.importGroups(batch.iterator()).getImported();
+    }
+
+    @Override
+    public boolean updateGroup() {
+        KPopGroup group = syntheticGroup(random.nextInt(rows), random);
+        group.popularityScore = random.nextInt(101);
+        return manager.updateGroup(group.name, group);
+    }
+
+    @Override
+    public boolean updateScore() {
+        return manager.updateScore(groupName(random.nextInt(rows)), random.nextInt(101));
+    }
+
+    @Override
+    public void enableScoreBuffer() {
+        manager.enableScoreBuffer();
+    }
+
+    @Override
+    public int updateScoresBuffered(int count) {
+        for (int i = 0; i < count; i++) manager.updateScore(groupName(random.nextInt(rows)), random.nextInt(101));
+        manager.flushScores();
+        return count;
+    }
+
+    @Override
+    public Object getGroup() {
+        return manager.getGroup(groupName(random.nextInt(rows)));
+    }
+
+    @Override
+    public List<?> getGroups() {
+        return manager.getGroups();
+    }
+
+    @Override
+    public int forEachGroup() {
+        return manager.forEachGroup(group -> { });
+    }
+
+    @Override
+    public Object loadGroupTable() {
+        return manager.loadGroupTable();
+    }
+
+    @Override
+    public List<?> rankGroups() {
+        return manager.rankGroups();
+    }
+
+    @Override
+    public List<?> topK(int k) {
+        return manager.topK(k);
+    }
+
+    @Override
+    public int getRank() {
+        return manager.getRank(groupName(random.nextInt(rows)));
+    }
+
+    @Override
+    public List<String> sampleMembers() {
+        return syntheticGroup(0, random).members;
+    }
+
+    @Override
+    public List<String> splitMembers(String text) {
+        return KPopValidator.splitMembers(text);
+    }
+
+    @Override
+    public boolean isValidDate(String text) {
+        return KPopValidator.isValidDate(text);
+    }
+
+    @Override
+    public Object parseStatus(String text) {
+        return KPopValidator.parseStatus(text);
+    }
+
+    @Override
+    public Object validate(String name, String debutDate, String members, String agency,
+                           String latestAlbum, String status, String score) {
+        return KPopValidator.validate(name, debutDate, members, agency, latestAlbum, status, score).getGroup();
+    }
+
+    @Override
+    public Object newGroup(String name, String debutDate, List<String> members, String agency,
+                           String latestAlbum, String status, int score) {
+        return new KPopGroup(name, debutDate, members, agency, latestAlbum, status, score);
+    }
+
+    private KPopGroup newGroup() {
+        KPopGroup group = syntheticGroup(0, random);
+        group.name = "Bench Group " + (inserted++);
+        return group;
+    }
+
+    /**
+     * Generates a template database, writing it under a temporary name first so an
+     * interrupted run never leaves a half-filled template behind.
+     */
+    private static void generate(Path template, int rows) throws IOException {
+        File partial = new File(template + ".partial");
+        deleteDatabase(partial);
+        KPopDatabaseManager generator = new KPopDatabaseManager();
+        if (!generator.connect(partial.getPath())) throw new IOException("Cannot create " + partial);
+        try {
+            KPopImportResult generated = generator.importGroups(syntheticGroups(rows, rows));
+            if (generated.getImported() != rows) throw new IOException("Generated only " + generated);
+        } finally {
+            generator.close();
+        }
+        Files.move(partial.toPath(), template, StandardCopyOption.ATOMIC_MOVE);
+        deleteDatabase(partial);
+    }
+
+    /**
+     * Returns the name of the i-th synthetic group.
+     */
+    static String groupName(int i) {
+        return "Group " + i;
+    }
+
+    /**
+     * Returns a lazily generated sequence of synthetic groups with realistic field sizes.
+     * The same count and seed always give the same groups.
+     */
+    static Iterator<KPopGroup> syntheticGroups(int count, long seed) {
+        Random random = new Random(seed);
+        return new Iterator<KPopGroup>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public KPopGroup next() {
+                if (next >= count) throw new NoSuchElementException();
+                return syntheticGroup(next++, random);
+            }
+        };
+    }
+
+    /**
+     * Builds one synthetic group named after its position.
+     */
+    static KPopGroup syntheticGroup(int i, Random random) {
+        int memberCount = 4 + random.nextInt(6);
+        List<String> members = new ArrayList<>(memberCount);
+        for (int m = 0; m < memberCount; m++) {
+            String member = SYLLABLES[random.nextInt(SYLLABLES.length)] + SYLLABLES[random.nextInt(SYLLABLES.length)];
+            members.add(Character.toUpperCase(member.charAt(0)) + member.substring(1));
+        }
+        String debut = LocalDate.of(1995, 1, 1).plusDays(random.nextInt(30 * 365)).toString();
+        String album = "Album " + Integer.toString(random.nextInt(1 << 20), 36);
+        return new KPopGroup(groupName(i), debut, members, AGENCIES[random.nextInt(AGENCIES.length)],
+                album, STATUSES[random.nextInt(STATUSES.length)], random.nextInt(101));
+    }
+
+    private static void deleteDatabase(File dbFile) {
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            new File(dbFile.getPath() + suffix).delete();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package kpopdms.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Point reads, full scans, row mapping and ranking on a database of each size.
+ * Every trial opens its own copy of the generated database, and nothing here writes to it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DatabaseReadBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private Workload workload;
+
+    @Setup(Level.Trial)
+    public void open() throws Exception {
+        workload = Workload.create();
+        workload.open(rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        workload.close();
+    }
+
+    @Benchmark
+    public void getGroup_point(Blackhole bh) {
+        bh.consume(workload.getGroup());
+    }
+
+    @Benchmark
+    public void getGroups_fullScan(Blackhole bh) {
+        bh.consume(workload.getGroups());
+    }
+
+    @Benchmark
+    public void forEachGroup_stream(Blackhole bh) {
+        bh.consume(workload.forEachGroup());
+    }
+
+    @Benchmark
+    public void loadGroupTable(Blackhole bh) {
+        bh.consume(workload.loadGroupTable());
+    }
+
+    @Benchmark
+    public void rankGroups(Blackhole bh) {
+        bh.consume(workload.rankGroups());
+    }
+
+    @Benchmark
+    public void topK_10(Blackhole bh) {
+        bh.consume(workload.topK(10));
+    }
+
+    @Benchmark
+    public void getRank(Blackhole bh) {
+        bh.consume(workload.getRank());
+    }
+}
@@ -0,0 +1,65 @@
+package kpopdms.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Single and batched inserts and point updates on a database of each size.
+ * Every trial starts from its own fresh copy, so the rows one benchmark inserts are never
+ * counted in another's table size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DatabaseWriteBenchmark {
+    /** Groups inserted per call of the batched insert. */
+    public static final int BATCH_SIZE = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private Workload workload;
+
+    @Setup(Level.Trial)
+    public void open() throws Exception {
+        workload = Workload.create();
+        workload.open(rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        workload.close();
+    }
+
+    @Benchmark
+    public void addGroup(Blackhole bh) {
+        bh.consume(workload.addGroup());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void importGroups_batch1000(Blackhole bh) {
+        bh.consume(workload.importGroups(BATCH_SIZE));
+    }
+
+    @Benchmark
+    public void updateGroup_point(Blackhole bh) {
+        bh.consume(workload.updateGroup());
+    }
+
+    @Benchmark
+    public void updateScore_point(Blackhole bh) {
+        bh.consume(workload.updateScore());
+    }
+}
@@ -0,0 +1,116 @@
+package kpopdms.bench;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Member list joining and splitting, and input validation, without a database.
+ * The "legacy" benchmarks repeat the checks the front ends made before KPopValidator: a new
+ * strict SimpleDateFormat per date, string comparisons for the status and Integer.parseInt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParsingBenchmark {
+    private static final String[] STATUSES = {"active", "Active", "hiatus", "disbanded", " active "};
+
+    private Workload workload;
+    private List<String> members;
+    private String joined;
+    private String[] dates;
+    private String score = "87";
+    private int next;
+
+    @Setup
+    public void setUp() {
+        workload = Workload.create();
+        members = workload.sampleMembers();
+        joined = String.join(", ", members);
+        Random random = new Random(42);
+        dates = new String[1024];
+        for (int i = 0; i < dates.length; i++) {
+            // One date in sixteen is invalid, as typed-in data sometimes is
+            dates[i] = i % 16 == 0 ? "2021-02-29" : LocalDate.of(1990, 1, 1).plusDays(random.nextInt(12_000)).toString();
+        }
+    }
+
+    private String nextDate() {
+        return dates[next++ & 1023];
+    }
+
+    @Benchmark
+    public void members_join(Blackhole bh) {
+        bh.consume(String.join(",", members));
+    }
+
+    @Benchmark
+    public void members_split(Blackhole bh) {
+        bh.consume(Arrays.asList(joined.split(",")));
+    }
+
+    @Benchmark
+    public void members_splitMembers(Blackhole bh) {
+        bh.consume(workload.splitMembers(joined));
+    }
+
+    @Benchmark
+    public void date_simpleDateFormat(Blackhole bh) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+        format.setLenient(false);
+        try {
+            bh.consume(format.parse(nextDate()));
+        } catch (ParseException e) {
+            bh.consume(e);
+        }
+    }
+
+    @Benchmark
+    public void date_validator(Blackhole bh) {
+        bh.consume(workload.isValidDate(nextDate()));
+    }
+
+    @Benchmark
+    public void status_compare(Blackhole bh) {
+        String status = STATUSES[next++ % STATUSES.length].trim().toLowerCase();
+        bh.consume(status.equals("active") || status.equals("disbanded") || status.equals("hiatus"));
+    }
+
+    @Benchmark
+    public void status_validator(Blackhole bh) {
+        bh.consume(workload.parseStatus(STATUSES[next++ % STATUSES.length]));
+    }
+
+    @Benchmark
+    public void validateGroup_legacy(Blackhole bh) {
+        String date = nextDate();
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+        format.setLenient(false);
+        try {
+            format.parse(date);
+            String status = "active".trim().toLowerCase();
+            if (!status.equals("active") && !status.equals("disbanded") && !status.equals("hiatus")) return;
+            bh.consume(workload.newGroup("Bench Group", date, Arrays.asList(joined.split(",")), "HYBE",
+                    "Album", status, Integer.parseInt(score)));
+        } catch (ParseException | NumberFormatException e) {
+            bh.consume(e);
+        }
+    }
+
+    @Benchmark
+    public void validateGroup_validator(Blackhole bh) {
+        bh.consume(workload.validate("Bench Group", nextDate(), joined, "HYBE", "Album", "active", score));
+    }
+}
@@ -0,0 +1,51 @@
+package kpopdms.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Score updates through the write-behind buffer, to compare with
+ * {@link DatabaseWriteBenchmark#updateScore_point}. Each call queues a burst of updates and
+ * waits until they are written, so the time per operation includes the flush.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScoreBufferBenchmark {
+    /** Score updates queued per call. */
+    public static final int BURST = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private Workload workload;
+
+    @Setup(Level.Trial)
+    public void open() throws Exception {
+        workload = Workload.create();
+        workload.open(rows);
+        workload.enableScoreBuffer();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        workload.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void updateScore_buffered(Blackhole bh) {
+        bh.consume(workload.updateScoresBuffered(BURST));
+    }
+}
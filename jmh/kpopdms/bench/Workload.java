@@ -0,0 +1,100 @@
+package kpopdms.bench;
+
+import java.util.List;
+
+/**
+ * The operations the benchmarks time, implemented by {@code KPopBenchmarkWorkload}.
+ *
+ * JMH does not accept benchmark classes in the default package, and classes in a named
+ * package cannot refer to the application's classes, which all live in the default package.
+ * The benchmarks therefore call the application through this interface. The implementation
+ * is loaded once per trial, and the calls through the interface are inlined by the JIT, so
+ * they add nothing measurable.
+ */
+public interface Workload {
+    /**
+     * Loads the implementation from the default package.
+     *
+     * @return a new workload with no database open
+     */
+    static Workload create() {
+        try {
+            return (Workload) Class.forName("KPopBenchmarkWorkload").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot load KPopBenchmarkWorkload", e);
+        }
+    }
+
+    /**
+     * Opens a fresh database with the given number of synthetic groups. The database is a
+     * copy of a template that is generated once per size and kept between runs.
+     *
+     * @param rows number of groups
+     * @throws Exception if the database cannot be created
+     */
+    void open(int rows) throws Exception;
+
+    /**
+     * Closes the database and deletes its file.
+     */
+    void close();
+
+    /** Inserts one new group. */
+    boolean addGroup();
+
+    /** Inserts new groups in one batched transaction and returns how many were imported. */
+    int importGroups(int count);
+
+    /** Replaces all fields of a random group. */
+    boolean updateGroup();
+
+    /** Changes the score of a random group. */
+    boolean updateScore();
+
+    /** Switches on the write-behind score buffer. */
+    void enableScoreBuffer();
+
+    /** Queues score changes for random groups, then waits until they are written. */
+    int updateScoresBuffered(int count);
+
+    /** Looks up a random group by name. */
+    Object getGroup();
+
+    /** Reads and maps every row. */
+    List<?> getGroups();
+
+    /** Streams every row without keeping them, and returns how many there were. */
+    int forEachGroup();
+
+    /** Loads the columnar in-memory table. */
+    Object loadGroupTable();
+
+    /** Reads every group ordered by popularity. */
+    List<?> rankGroups();
+
+    /** Reads the k most popular groups. */
+    List<?> topK(int k);
+
+    /** Looks up the rank of a random group. */
+    int getRank();
+
+    /** Returns the member list of a synthetic group. */
+    List<String> sampleMembers();
+
+    /** Splits a member list with the application's own splitter. */
+    List<String> splitMembers(String text);
+
+    /** Checks a date with the application's validator. */
+    boolean isValidDate(String text);
+
+    /** Parses a status with the application's validator. */
+    Object parseStatus(String text);
+
+    /** Validates the text fields of a group and returns the parsed group, or null if invalid. */
+    Object validate(String name, String debutDate, String members, String agency,
+                    String latestAlbum, String status, String score);
+
+    /** Builds a group directly from already checked fields. */
+    Object newGroup(String name, String debutDate, List<String> members, String agency,
+                    String latestAlbum, String status, int score);
+}
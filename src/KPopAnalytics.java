@@ -0,0 +1,336 @@
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Summaries of the whole collection: popularity per agency, how many groups have each status,
+ * how many debuted each year, and how many members groups have.
+ *
+ * The full report is computed from a {@link KPopGroupTable} snapshot. The rows are split into
+ * blocks that are scanned in parallel on the common fork-join pool, each into its own set of
+ * counters, and the counters are merged at the end, so no locking is needed and every core
+ * reads its own part of the column arrays.
+ */
+public class KPopAnalytics {
+    /** Key used for groups without an agency. */
+    public static final String NO_AGENCY = "(none)";
+    /** Key used for groups whose status is not one of the known values. */
+    public static final String UNKNOWN_STATUS = "unknown";
+
+    private static final int BLOCK_ROWS = 1 << 16;
+    private static final int FIRST_YEAR = 1900;
+    private static final int YEAR_SLOTS = 256;
+
+    private final KPopDatabaseManager manager;
+
+    /**
+     * Creates analytics over the manager's database.
+     *
+     * @param manager connected database manager
+     */
+    public KPopAnalytics(KPopDatabaseManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Count, total, minimum and maximum of a set of numbers.
+     */
+    public static final class Stats {
+        private long count;
+        private long sum;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+
+        Stats() {
+        }
+
+        Stats(long count, long sum, int min, int max) {
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+        }
+
+        void add(int value) {
+            count++;
+            sum += value;
+            if (value < min) min = value;
+            if (value > max) max = value;
+        }
+
+        void merge(Stats other) {
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        /**
+         * @return number of values
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the average, or 0 if there are no values
+         */
+        public double getAverage() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * @return the smallest value, or 0 if there are no values
+         */
+        public int getMin() {
+            return count == 0 ? 0 : min;
+        }
+
+        /**
+         * @return the largest value, or 0 if there are no values
+         */
+        public int getMax() {
+            return count == 0 ? 0 : max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d avg=%.1f min=%d max=%d", count, getAverage(), getMin(), getMax());
+        }
+    }
+
+    /**
+     * Every summary of one snapshot.
+     */
+    public static final class Report {
+        private final int groupCount;
+        private final Stats popularity;
+        private final SortedMap<String, Stats> popularityByAgency;
+        private final Map<String, Long> statusCounts;
+        private final SortedMap<Integer, Long> debutYearCounts;
+        private final Stats memberCounts;
+        private final SortedMap<Integer, Long> memberCountHistogram;
+
+        Report(int groupCount, Stats popularity, SortedMap<String, Stats> popularityByAgency, Map<String, Long> statusCounts,
+               SortedMap<Integer, Long> debutYearCounts, Stats memberCounts, SortedMap<Integer, Long> memberCountHistogram) {
+            this.groupCount = groupCount;
+            this.popularity = popularity;
+            this.popularityByAgency = popularityByAgency;
+            this.statusCounts = statusCounts;
+            this.debutYearCounts = debutYearCounts;
+            this.memberCounts = memberCounts;
+            this.memberCountHistogram = memberCountHistogram;
+        }
+
+        /**
+         * @return number of groups
+         */
+        public int getGroupCount() {
+            return groupCount;
+        }
+
+        /**
+         * @return popularity scores of all groups
+         */
+        public Stats getPopularity() {
+            return popularity;
+        }
+
+        /**
+         * @return popularity scores per agency, by agency name; groups without one are under {@link #NO_AGENCY}
+         */
+        public SortedMap<String, Stats> getPopularityByAgency() {
+            return popularityByAgency;
+        }
+
+        /**
+         * @return number of groups per status, in the order of {@link KPopGroupStatus}
+         */
+        public Map<String, Long> getStatusCounts() {
+            return statusCounts;
+        }
+
+        /**
+         * @return number of groups per debut year; groups without a valid debut date are left out
+         */
+        public SortedMap<Integer, Long> getDebutYearCounts() {
+            return debutYearCounts;
+        }
+
+        /**
+         * @return member counts of all groups
+         */
+        public Stats getMemberCounts() {
+            return memberCounts;
+        }
+
+        /**
+         * @return number of groups per member count
+         */
+        public SortedMap<Integer, Long> getMemberCountHistogram() {
+            return memberCountHistogram;
+        }
+
+        /**
+         * @return the report as plain text, one section per summary
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Groups: ").append(groupCount).append('\n');
+            sb.append("Popularity: ").append(popularity).append('\n');
+            sb.append("\nPopularity by agency:\n");
+            for (Map.Entry<String, Stats> entry : popularityByAgency.entrySet()) {
+                sb.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+            }
+            sb.append("\nStatus:\n");
+            for (Map.Entry<String, Long> entry : statusCounts.entrySet()) {
+                sb.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+            }
+            sb.append("\nDebut year:\n");
+            for (Map.Entry<Integer, Long> entry : debutYearCounts.entrySet()) {
+                sb.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+            }
+            sb.append("\nMembers: ").append(memberCounts).append('\n');
+            for (Map.Entry<Integer, Long> entry : memberCountHistogram.entrySet()) {
+                sb.append("  ").append(entry.getKey()).append(" members: ").append(entry.getValue()).append('\n');
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Counters for one block of rows. Indexed by agency code, status ordinal, year and member count,
+     * so adding a row is a few array updates.
+     */
+    private static final class Accumulator {
+        final Stats popularity = new Stats();
+        final Stats[] agencies;
+        final Stats noAgency = new Stats();
+        final long[] statuses = new long[KPopGroupStatus.values().length + 1];
+        final long[] years = new long[YEAR_SLOTS];
+        final Map<Integer, Long> otherYears = new HashMap<>();
+        final Stats members = new Stats();
+        long[] memberHistogram = new long[16];
+
+        Accumulator(int agencyCount) {
+            agencies = new Stats[agencyCount];
+        }
+
+        void add(KPopGroupTable table, int row) {
+            int score = table.getPopularityScore(row);
+            popularity.add(score);
+
+            int agency = table.getAgencyCode(row);
+            if (agency == KPopStringDictionary.NULL_CODE) {
+                noAgency.add(score);
+            } else {
+                if (agencies[agency] == null) agencies[agency] = new Stats();
+                agencies[agency].add(score);
+            }
+
+            KPopGroupStatus status = table.getStatus(row);
+            statuses[status == null ? statuses.length - 1 : status.ordinal()]++;
+
+            int day = table.getDebutEpochDay(row);
+            if (day != KPopGroupTable.NO_DATE) {
+                int year = LocalDate.ofEpochDay(day).getYear();
+                int slot = year - FIRST_YEAR;
+                if (slot >= 0 && slot < YEAR_SLOTS) {
+                    years[slot]++;
+                } else {
+                    otherYears.merge(year, 1L, Long::sum);
+                }
+            }
+
+            int memberCount = table.getMemberCount(row);
+            members.add(memberCount);
+            if (memberCount >= memberHistogram.length) {
+                long[] grown = new long[Math.max(memberHistogram.length * 2, memberCount + 1)];
+                System.arraycopy(memberHistogram, 0, grown, 0, memberHistogram.length);
+                memberHistogram = grown;
+            }
+            memberHistogram[memberCount]++;
+        }
+
+        Accumulator merge(Accumulator other) {
+            popularity.merge(other.popularity);
+            for (int i = 0; i < agencies.length; i++) {
+                if (other.agencies[i] == null) continue;
+                if (agencies[i] == null) agencies[i] = new Stats();
+                agencies[i].merge(other.agencies[i]);
+            }
+            noAgency.merge(other.noAgency);
+            for (int i = 0; i < statuses.length; i++) statuses[i] += other.statuses[i];
+            for (int i = 0; i < years.length; i++) years[i] += other.years[i];
+            other.otherYears.forEach((year, count) -> otherYears.merge(year, count, Long::sum));
+            members.merge(other.members);
+            if (other.memberHistogram.length > memberHistogram.length) {
+                long[] grown = new long[other.memberHistogram.length];
+                System.arraycopy(memberHistogram, 0, grown, 0, memberHistogram.length);
+                memberHistogram = grown;
+            }
+            for (int i = 0; i < other.memberHistogram.length; i++) memberHistogram[i] += other.memberHistogram[i];
+            return this;
+        }
+
+        Report toReport(KPopGroupTable table) {
+            SortedMap<String, Stats> byAgency = new TreeMap<>();
+            for (int i = 0; i < agencies.length; i++) {
+                if (agencies[i] != null) byAgency.put(table.getAgencyNames().decode(i), agencies[i]);
+            }
+            if (noAgency.getCount() > 0) byAgency.put(NO_AGENCY, noAgency);
+
+            Map<String, Long> byStatus = new LinkedHashMap<>();
+            for (KPopGroupStatus status : KPopGroupStatus.values()) byStatus.put(status.toString(), statuses[status.ordinal()]);
+            if (statuses[statuses.length - 1] > 0) byStatus.put(UNKNOWN_STATUS, statuses[statuses.length - 1]);
+
+            SortedMap<Integer, Long> byYear = new TreeMap<>(otherYears);
+            for (int i = 0; i < years.length; i++) {
+                if (years[i] > 0) byYear.put(FIRST_YEAR + i, years[i]);
+            }
+
+            SortedMap<Integer, Long> byMemberCount = new TreeMap<>();
+            for (int i = 0; i < memberHistogram.length; i++) {
+                if (memberHistogram[i] > 0) byMemberCount.put(i, memberHistogram[i]);
+            }
+            return new Report(table.size(), popularity, byAgency, byStatus, byYear, members, byMemberCount);
+        }
+    }
+
+    /**
+     * Computes every summary of a snapshot, scanning blocks of rows in parallel.
+     * The table must not have rows added while this runs.
+     *
+     * @param table the snapshot to summarize
+     * @return the report
+     */
+    public static Report analyze(KPopGroupTable table) {
+        int size = table.size();
+        int agencyCount = table.getAgencyNames().size();
+        int blocks = (size + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        Accumulator total = IntStream.range(0, blocks).parallel()
+                .mapToObj(block -> {
+                    Accumulator accumulator = new Accumulator(agencyCount);
+                    int end = Math.min(size, (block + 1) * BLOCK_ROWS);
+                    for (int row = block * BLOCK_ROWS; row < end; row++) accumulator.add(table, row);
+                    return accumulator;
+                })
+                .reduce(Accumulator::merge)
+                .orElseGet(() -> new Accumulator(agencyCount));
+        return total.toReport(table);
+    }
+
+    /**
+     * Loads a snapshot of the database and computes every summary of it.
+     *
+     * @return the report, empty if the groups could not be loaded
+     */
+    public Report report() {
+        return analyze(manager.loadGroupTable());
+    }
+}
@@ -0,0 +1,189 @@
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Runs KPopDatabaseManager operations on a dedicated background thread.
+ * Every method returns immediately with a CompletableFuture, so callers such as the
+ * Swing interface never wait on SQLite. Tasks run one at a time in the order they
+ * were submitted, and a task that is cancelled before it starts is never run.
+ * If a KPopGroupCache is given, popularity pages are served from its warm ranking.
+ * Fuzzy searches run on a second thread of their own, so searching while typing never
+ * waits behind a slow write.
+ */
+public class KPopAsyncDatabaseManager {
+    private final KPopDatabaseManager manager;
+    private final KPopGroupCache cache;
+    private final KPopSearchIndex searchIndex;
+    private final ExecutorService executor;
+    private final ExecutorService searchExecutor;
+
+    /**
+     * Wraps a connected manager.
+     *
+     * @param manager the manager whose operations should run in the background
+     */
+    public KPopAsyncDatabaseManager(KPopDatabaseManager manager) {
+        this(manager, null);
+    }
+
+    /**
+     * Wraps a connected manager and a cache in front of it.
+     *
+     * @param manager the manager whose operations should run in the background
+     * @param cache cache used for reads, or null to always read from the database
+     */
+    public KPopAsyncDatabaseManager(KPopDatabaseManager manager, KPopGroupCache cache) {
+        this(manager, cache, null);
+    }
+
+    /**
+     * Wraps a connected manager, a cache and a search index in front of it.
+     *
+     * @param manager the manager whose operations should run in the background
+     * @param cache cache used for reads, or null to always read from the database
+     * @param searchIndex index used by {@link #search(String, int)}, or null if searching is not needed
+     */
+    public KPopAsyncDatabaseManager(KPopDatabaseManager manager, KPopGroupCache cache, KPopSearchIndex searchIndex) {
+        this.manager = manager;
+        this.cache = cache;
+        this.searchIndex = searchIndex;
+        this.executor = newWorker("kpop-db-worker");
+        this.searchExecutor = newWorker("kpop-search-worker");
+    }
+
+    private static ExecutorService newWorker(String name) {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the wrapped manager
+     */
+    public KPopDatabaseManager getManager() {
+        return manager;
+    }
+
+    /**
+     * Runs any task on the database thread.
+     *
+     * @param task the work to run
+     * @param <T> type of the task's result
+     * @return a future completed with the task's result
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    /**
+     * @see KPopDatabaseManager#addGroup(KPopGroup)
+     */
+    public CompletableFuture<Boolean> addGroup(KPopGroup group) {
+        return submit(() -> manager.addGroup(group));
+    }
+
+    /**
+     * @see KPopDatabaseManager#updateGroup(String, KPopGroup)
+     */
+    public CompletableFuture<Boolean> updateGroup(String name, KPopGroup updatedGroup) {
+        return submit(() -> manager.updateGroup(name, updatedGroup));
+    }
+
+    /**
+     * @see KPopDatabaseManager#deleteGroup(String)
+     */
+    public CompletableFuture<Boolean> deleteGroup(String name) {
+        return submit(() -> manager.deleteGroup(name));
+    }
+
+    /**
+     * @see KPopDatabaseManager#getGroups()
+     */
+    public CompletableFuture<List<KPopGroup>> getGroups() {
+        return submit(cache != null ? cache::getGroups : manager::getGroups);
+    }
+
+    /**
+     * @see KPopDatabaseManager#rankGroups()
+     */
+    public CompletableFuture<List<KPopGroup>> rankGroups() {
+        return submit(cache != null ? cache::rankGroups : manager::rankGroups);
+    }
+
+    /**
+     * @see KPopDatabaseManager#countGroups()
+     */
+    public CompletableFuture<Integer> countGroups() {
+        return submit(manager::countGroups);
+    }
+
+    /**
+     * @see KPopDatabaseManager#countGroups(KPopGroupQuery)
+     */
+    public CompletableFuture<Integer> countGroups(KPopGroupQuery query) {
+        return submit(() -> manager.countGroups(query));
+    }
+
+    /**
+     * @see KPopDatabaseManager#countGroupsBefore(KPopGroupQuery, KPopGroup)
+     */
+    public CompletableFuture<Integer> countGroupsBefore(KPopGroupQuery query, KPopGroup group) {
+        return submit(() -> manager.countGroupsBefore(query, group));
+    }
+
+    /**
+     * Loads one page of groups. Unfiltered popularity pages come from the cache's ranking when there is one.
+     *
+     * @see KPopDatabaseManager#getGroupPage(KPopGroupQuery, KPopGroup, int, int)
+     */
+    public CompletableFuture<List<KPopGroup>> getGroupPage(KPopGroupQuery query, KPopGroup after, int offset, int limit) {
+        return submit(() -> {
+            if (cache != null && query.getSort() == KPopDatabaseManager.SortOrder.POPULARITY && !query.hasFilters()) {
+                List<KPopGroup> page = cache.getRankingPage(offset, limit);
+                if (page != null) return page;
+            }
+            return manager.getGroupPage(query, after, offset, limit);
+        });
+    }
+
+    /**
+     * @see KPopDatabaseManager#findGroups(KPopGroupQuery)
+     */
+    public CompletableFuture<List<KPopGroup>> findGroups(KPopGroupQuery query) {
+        return submit(() -> manager.findGroups(query));
+    }
+
+    /**
+     * Loads a snapshot of all groups and summarizes it. The summary itself is computed in parallel.
+     *
+     * @see KPopAnalytics#report()
+     */
+    public CompletableFuture<KPopAnalytics.Report> statistics() {
+        return submit(() -> new KPopAnalytics(manager).report());
+    }
+
+    /**
+     * Runs a fuzzy search on the search thread. A search cancelled before it starts is skipped,
+     * so cancelling the previous search on every keystroke keeps only the latest one queued.
+     *
+     * @see KPopSearchIndex#search(String, int)
+     * @throws IllegalStateException if this facade was created without a search index
+     */
+    public CompletableFuture<List<KPopSearchIndex.Match>> search(String text, int limit) {
+        if (searchIndex == null) throw new IllegalStateException("No search index was given.");
+        return CompletableFuture.supplyAsync(() -> searchIndex.search(text, limit), searchExecutor);
+    }
+
+    /**
+     * Stops accepting new work. Tasks already queued still run.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        searchExecutor.shutdown();
+    }
+}
@@ -0,0 +1,564 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a stream of commands against one database without the interactive menu, for scripts.
+ *
+ * Every line is one command, either tab-separated or a JSON object:
+ *
+ * <pre>
+ * add    name  debut_date  members  agency  latest_album  status  popularity_score
+ * update name  debut_date  members  agency  latest_album  status  popularity_score  [version]
+ * score  name  popularity_score
+ * delete name
+ * get    name
+ * rank   name
+ * top    k
+ * query  [key=value ...]        keys as in GET /groups: prefix, agency, status, debut_from,
+ *                               debut_to, min_score, max_score, sort, limit
+ *
+ * {"op":"add","name":"...","debut_date":"...","members":[...],...,"popularity_score":90}
+ * {"op":"delete","name":"..."}
+ * {"op":"top","k":10}
+ * </pre>
+ *
+ * Blank lines and lines starting with # are skipped. Consecutive writes are applied in one
+ * transaction per {@code batchSize} commands; a read first commits the writes before it, so
+ * it sees them. A write that fails its own checks (unknown group, duplicate name, stale
+ * version) is reported and skipped without affecting the rest of its batch. If the
+ * transaction itself fails, every command in the batch is reported as failed and nothing
+ * from it is kept.
+ *
+ * Results are written as one line per command, tab-separated or JSON, through a buffer, and
+ * only after the batch they belong to has committed. In TSV, reads print one {@code group}
+ * line per group before their {@code ok} line.
+ */
+public class KPopBatch {
+    /** Number of writes committed together by default. */
+    public static final int DEFAULT_BATCH_SIZE = KPopDatabaseManager.DEFAULT_BATCH_SIZE;
+
+    /**
+     * How results are written.
+     */
+    public enum Format {
+        /** Tab-separated: status, line number, command, then the detail or the group's fields. */
+        TSV,
+        /** One JSON object per line with "line", "op", "ok" and the result or "error". */
+        JSONL
+    }
+
+    private enum Op {
+        ADD, UPDATE, SCORE, DELETE, GET, RANK, TOP, QUERY;
+
+        boolean writes() {
+            return this == ADD || this == UPDATE || this == SCORE || this == DELETE;
+        }
+    }
+
+    /**
+     * One parsed line of the command stream.
+     */
+    private static final class Command {
+        final int line;
+        final Op op;
+        final String name;
+        String error;
+        KPopGroup group;
+        long version;
+        int number;
+        KPopGroupQuery query;
+        Integer limit;
+
+        Command(int line, Op op, String name) {
+            this.line = line;
+            this.op = op;
+            this.name = name;
+        }
+    }
+
+    private final KPopDatabaseManager manager;
+    private final Format format;
+    private final int batchSize;
+    private final StringBuilder sb = new StringBuilder(256);
+    private final List<Command> pending = new ArrayList<>();
+    private Writer out;
+    private int succeeded;
+    private int failed;
+
+    /**
+     * Creates a runner for a connected manager.
+     *
+     * @param manager the database to run the commands against
+     * @param format how results are written
+     * @param batchSize number of writes committed together
+     */
+    public KPopBatch(KPopDatabaseManager manager, Format format, int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive.");
+        this.manager = manager;
+        this.format = format;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Runs every command read from in and writes the results to out. Out is flushed after
+     * every batch and at the end, but not closed.
+     *
+     * @param in the commands, one per line
+     * @param out where the results are written; should be buffered
+     * @return number of commands that failed
+     * @throws IOException if reading the commands or writing the results fails
+     */
+    public int run(Reader in, Writer out) throws IOException {
+        this.out = out;
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 64 * 1024);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) continue;
+
+            Command command;
+            try {
+                command = line.charAt(0) == '{' ? parseJson(lineNumber, line) : parseTsv(lineNumber, line);
+            } catch (IllegalArgumentException e) {
+                if (pending.isEmpty()) {
+                    error(lineNumber, null, e.getMessage());
+                } else {
+                    // Queued behind the waiting writes so results stay in input order
+                    Command invalid = new Command(lineNumber, null, null);
+                    invalid.error = e.getMessage();
+                    pending.add(invalid);
+                }
+                continue;
+            }
+
+            if (command.op.writes()) {
+                pending.add(command);
+                if (pending.size() >= batchSize) commit();
+            } else {
+                commit();
+                read(command);
+            }
+        }
+        commit();
+        return failed;
+    }
+
+    /**
+     * @return number of commands that succeeded so far
+     */
+    public int getSucceededCount() {
+        return succeeded;
+    }
+
+    /**
+     * @return number of commands that failed so far, including lines that could not be parsed
+     */
+    public int getFailedCount() {
+        return failed;
+    }
+
+    /**
+     * Applies the waiting writes in one transaction and prints their results.
+     */
+    private void commit() throws IOException {
+        if (pending.isEmpty()) return;
+        List<String> errors = manager.inTransaction(tx -> {
+            // Rebuilt on every attempt, since the work runs again after a busy database
+            List<String> results = new ArrayList<>(pending.size());
+            for (Command command : pending) results.add(apply(tx, command));
+            return results;
+        });
+
+        for (int i = 0; i < pending.size(); i++) {
+            Command command = pending.get(i);
+            String error = command.error != null ? command.error
+                    : errors == null ? "Transaction failed; batch rolled back." : errors.get(i);
+            if (error == null) {
+                ok(command, command.name);
+            } else {
+                error(command.line, command.op, error);
+            }
+        }
+        pending.clear();
+        out.flush();
+    }
+
+    /**
+     * Applies one write inside the batch's transaction.
+     *
+     * @return null on success, otherwise why the command was skipped
+     */
+    private static String apply(KPopDatabaseManager.Transaction tx, Command command) throws SQLException {
+        if (command.error != null) return command.error;
+        switch (command.op) {
+            case ADD:
+                if (tx.getGroup(command.name) != null) return "Group already exists.";
+                tx.addGroup(command.group);
+                return null;
+            case UPDATE: {
+                KPopGroup before = tx.getGroup(command.name);
+                if (before == null) return "Group not found.";
+                if (command.version > 0 && command.version != before.version) {
+                    return "Version conflict: expected " + command.version + " but found " + before.version + ".";
+                }
+                command.group.version = before.version;
+                tx.updateGroup(command.name, command.group);
+                return null;
+            }
+            case SCORE: {
+                KPopGroup group = tx.getGroup(command.name);
+                if (group == null) return "Group not found.";
+                group.popularityScore = command.number;
+                tx.updateGroup(command.name, group);
+                return null;
+            }
+            case DELETE:
+                return tx.deleteGroup(command.name) ? null : "Group not found.";
+            default:
+                throw new IllegalStateException("Not a write: " + command.op);
+        }
+    }
+
+    /**
+     * Runs a read command and prints its result.
+     */
+    private void read(Command command) throws IOException {
+        switch (command.op) {
+            case GET: {
+                KPopGroup group = manager.getGroup(command.name);
+                if (group == null) {
+                    error(command.line, command.op, "Group not found.");
+                } else {
+                    groups(command, List.of(group));
+                }
+                break;
+            }
+            case RANK: {
+                int rank = manager.getRank(command.name);
+                if (rank < 0) {
+                    error(command.line, command.op, "Group not found.");
+                } else {
+                    ok(command, String.valueOf(rank));
+                }
+                break;
+            }
+            case TOP:
+                groups(command, manager.topK(command.number));
+                break;
+            case QUERY:
+                if (command.limit != null) {
+                    groups(command, manager.getGroupPage(command.query, null, 0, command.limit));
+                } else {
+                    groups(command, manager.findGroups(command.query));
+                }
+                break;
+            default:
+                throw new IllegalStateException("Not a read: " + command.op);
+        }
+    }
+
+    /**
+     * Parses a tab-separated command.
+     *
+     * @throws IllegalArgumentException if the command is unknown or its fields are invalid
+     */
+    private static Command parseTsv(int line, String text) {
+        String[] fields = text.split("\t", -1);
+        Op op = parseOp(fields[0]);
+        switch (op) {
+            case ADD:
+            case UPDATE: {
+                int max = op == Op.ADD ? 8 : 9;
+                if (fields.length < 8 || fields.length > max) {
+                    throw new IllegalArgumentException("Expected " + (op == Op.ADD ? "7" : "7 or 8") + " fields after " + fields[0] + ".");
+                }
+                KPopValidator.Result result = KPopValidator.validate(fields[1], fields[2], fields[3], fields[4],
+                        fields[5], fields[6], fields[7]);
+                if (!result.isValid()) throw new IllegalArgumentException("Invalid group: " + result.describeErrors());
+                Command command = new Command(line, op, result.getGroup().name);
+                command.group = result.getGroup();
+                if (fields.length == 9 && !fields[8].isBlank()) command.version = parseNumber("version", fields[8]);
+                return command;
+            }
+            case SCORE: {
+                requireFields(fields, 3);
+                Command command = new Command(line, op, requireName(fields[1]));
+                command.number = (int) parseNumber("popularity_score", fields[2]);
+                return command;
+            }
+            case TOP: {
+                requireFields(fields, 2);
+                Command command = new Command(line, op, null);
+                command.number = (int) parseNumber("k", fields[1]);
+                return command;
+            }
+            case QUERY: {
+                Map<String, String> params = new HashMap<>();
+                for (int i = 1; i < fields.length; i++) {
+                    int eq = fields[i].indexOf('=');
+                    if (eq < 1) throw new IllegalArgumentException("Expected key=value but found: " + fields[i]);
+                    String value = fields[i].substring(eq + 1).trim();
+                    if (!value.isEmpty()) params.put(fields[i].substring(0, eq).trim(), value);
+                }
+                return query(line, params);
+            }
+            default:
+                requireFields(fields, 2);
+                return new Command(line, op, requireName(fields[1]));
+        }
+    }
+
+    /**
+     * Parses a command given as a JSON object with an "op" field.
+     *
+     * @throws IllegalArgumentException if the command is unknown or its fields are invalid
+     */
+    private static Command parseJson(int line, String text) {
+        Map<String, Object> obj = KPopJson.parseObject(text);
+        Object rawOp = obj.get("op");
+        if (rawOp == null) throw new IllegalArgumentException("Missing field: op");
+        Op op = parseOp(rawOp.toString());
+        switch (op) {
+            case ADD:
+            case UPDATE: {
+                KPopValidator.Result result = KPopValidator.validate(KPopGroupReader.fromJson(obj));
+                if (!result.isValid()) throw new IllegalArgumentException("Invalid group: " + result.describeErrors());
+                // Updates never rename, so there is no other name to give
+                if (obj.containsKey("old_name")) throw new IllegalArgumentException("Renaming a group is not supported.");
+                KPopGroup group = result.getGroup();
+                Command command = new Command(line, op, group.name);
+                command.group = group;
+                command.version = group.version;
+                return command;
+            }
+            case SCORE: {
+                Command command = new Command(line, op, requireName(obj.get("name")));
+                command.number = (int) parseNumber("popularity_score", obj.get("popularity_score"));
+                return command;
+            }
+            case TOP: {
+                Command command = new Command(line, op, null);
+                command.number = (int) parseNumber("k", obj.get("k"));
+                return command;
+            }
+            case QUERY: {
+                Map<String, String> params = new HashMap<>();
+                for (Map.Entry<String, Object> entry : obj.entrySet()) {
+                    if (entry.getValue() != null && !entry.getKey().equals("op")) {
+                        String value = entry.getValue() instanceof Number
+                                ? String.valueOf(((Number) entry.getValue()).longValue()) : entry.getValue().toString();
+                        if (!value.isEmpty()) params.put(entry.getKey(), value);
+                    }
+                }
+                return query(line, params);
+            }
+            default:
+                return new Command(line, op, requireName(obj.get("name")));
+        }
+    }
+
+    /**
+     * Builds a query command from the same parameters GET /groups accepts.
+     */
+    private static Command query(int line, Map<String, String> params) {
+        Command command = new Command(line, Op.QUERY, null);
+        command.query = new KPopGroupQuery()
+                .namePrefix(params.get("prefix"))
+                .agency(params.get("agency"))
+                .status(params.get("status"))
+                .debutBetween(params.get("debut_from"), params.get("debut_to"))
+                .popularityBetween(intParam(params, "min_score"), intParam(params, "max_score"))
+                .sortBy("popularity".equals(params.get("sort"))
+                        ? KPopDatabaseManager.SortOrder.POPULARITY : KPopDatabaseManager.SortOrder.NAME);
+        command.limit = intParam(params, "limit");
+        if (command.limit != null && command.limit < 0) throw new IllegalArgumentException("limit must not be negative.");
+        return command;
+    }
+
+    private static Op parseOp(String text) {
+        try {
+            return Op.valueOf(text.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown command: " + text);
+        }
+    }
+
+    private static void requireFields(String[] fields, int count) {
+        if (fields.length != count) throw new IllegalArgumentException("Expected " + (count - 1) + " field(s) after " + fields[0] + ".");
+    }
+
+    private static String requireName(Object value) {
+        String name = value == null ? "" : value.toString().trim();
+        if (name.isEmpty()) throw new IllegalArgumentException("Missing field: name");
+        return name;
+    }
+
+    private static Integer intParam(Map<String, String> params, String key) {
+        String value = params.get(key);
+        return value == null ? null : (int) parseNumber(key, value);
+    }
+
+    private static long parseNumber(String field, Object value) {
+        if (value instanceof Number) return ((Number) value).longValue();
+        long number = KPopValidator.parseScore(value == null ? null : value.toString());
+        if (number == Long.MIN_VALUE) throw new IllegalArgumentException(field + " must be a whole number.");
+        return number;
+    }
+
+    private void ok(Command command, String detail) throws IOException {
+        succeeded++;
+        sb.setLength(0);
+        if (format == Format.TSV) {
+            sb.append("ok\t").append(command.line).append('\t').append(opName(command.op)).append('\t');
+            appendField(detail);
+        } else {
+            sb.append("{\"line\":").append(command.line).append(",\"op\":\"").append(opName(command.op)).append("\",\"ok\":true");
+            if (command.op == Op.RANK) {
+                sb.append(",\"name\":");
+                KPopJson.write(sb, command.name);
+                sb.append(",\"rank\":").append(detail);
+            } else {
+                sb.append(",\"name\":");
+                KPopJson.write(sb, detail);
+            }
+            sb.append('}');
+        }
+        sb.append('\n');
+        out.append(sb);
+    }
+
+    private void groups(Command command, List<KPopGroup> groups) throws IOException {
+        succeeded++;
+        sb.setLength(0);
+        if (format == Format.TSV) {
+            for (KPopGroup group : groups) {
+                sb.append("group\t").append(command.line);
+                for (String field : new String[] {group.name, group.debutDate, String.join(",", group.members),
+                        group.agency, group.latestAlbum, group.status}) {
+                    sb.append('\t');
+                    appendField(field);
+                }
+                sb.append('\t').append(group.popularityScore).append('\t').append(group.version).append('\n');
+                out.append(sb);
+                sb.setLength(0);
+            }
+            sb.append("ok\t").append(command.line).append('\t').append(opName(command.op)).append('\t').append(groups.size());
+        } else {
+            sb.append("{\"line\":").append(command.line).append(",\"op\":\"").append(opName(command.op))
+                    .append("\",\"ok\":true,\"count\":").append(groups.size()).append(",\"groups\":");
+            KPopJson.write(sb, groups);
+            sb.append('}');
+        }
+        sb.append('\n');
+        out.append(sb);
+    }
+
+    private void error(int line, Op op, String message) throws IOException {
+        failed++;
+        sb.setLength(0);
+        if (format == Format.TSV) {
+            sb.append("error\t").append(line).append('\t').append(op == null ? "" : opName(op)).append('\t');
+            appendField(message);
+        } else {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("line", line);
+            result.put("op", op == null ? null : opName(op));
+            result.put("ok", false);
+            result.put("error", message);
+            KPopJson.write(sb, result);
+        }
+        sb.append('\n');
+        out.append(sb);
+    }
+
+    /** Appends a TSV field, replacing tabs and line breaks so every result stays on one line. */
+    private void appendField(String value) {
+        if (value == null) return;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            sb.append(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+        }
+    }
+
+    private static String opName(Op op) {
+        return op.name().toLowerCase();
+    }
+
+    /**
+     * Runs a command file from the command line, as started by {@link KPopDMS#main(String[])}
+     * when it is given arguments. Results go to standard output; the manager's own error
+     * messages are moved to standard error so they do not mix with them.
+     *
+     * @param args path to the database, then optionally a command file ("-" or none for
+     *             standard input), --format tsv|jsonl and --batch-size n
+     * @return the exit status: 0 if every command succeeded, 1 if any failed, 2 on bad arguments
+     */
+    static int runCommandLine(String[] args) {
+        PrintStream results = System.out;
+        String commandPath = null;
+        Format format = Format.TSV;
+        int batchSize = DEFAULT_BATCH_SIZE;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--format":
+                        format = Format.valueOf(args[++i].toUpperCase());
+                        break;
+                    case "--batch-size":
+                        batchSize = Integer.parseInt(args[++i]);
+                        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive.");
+                        break;
+                    default:
+                        if (commandPath != null || (args[i].startsWith("--") && !args[i].equals("-"))) {
+                            throw new IllegalArgumentException("Unknown option " + args[i]);
+                        }
+                        commandPath = args[i];
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("Usage: java KPopDMS <database.db> [commands.txt|-] [--format tsv|jsonl] [--batch-size 1000]");
+            return 2;
+        }
+
+        System.setOut(System.err);
+        KPopDatabaseManager manager = new KPopDatabaseManager();
+        try {
+            if (!manager.connect(args[0])) {
+                System.err.println("Failed to connect to the database.");
+                return 2;
+            }
+            KPopBatch batch = new KPopBatch(manager, format, batchSize);
+            try (Reader in = commandPath == null || commandPath.equals("-")
+                    ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                    : Files.newBufferedReader(Path.of(commandPath), StandardCharsets.UTF_8)) {
+                Writer out = new BufferedWriter(new OutputStreamWriter(results, StandardCharsets.UTF_8), 64 * 1024);
+                int failedCount = batch.run(in, out);
+                out.flush();
+                return failedCount == 0 ? 0 : 1;
+            }
+        } catch (IOException e) {
+            System.err.println("Error running commands: " + e.getMessage());
+            return 2;
+        } finally {
+            manager.close();
+            System.setOut(results);
+        }
+    }
+}
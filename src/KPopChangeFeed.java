@@ -0,0 +1,196 @@
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers the change log of a database to consumers in commit order, so they can keep their
+ * own copy of the data up to date without reading the whole table again.
+ *
+ * Each subscription has a background thread that reads the log a page at a time into a bounded
+ * queue. When the consumer falls behind and the queue is full, the thread stops reading until
+ * there is room again, so a slow consumer never makes memory grow. Changes made through the
+ * manager wake the threads at once; changes made by other programs are picked up by polling.
+ *
+ * A consumer that saves {@link Subscription#getLastSequence()} together with its own state can
+ * subscribe again after a restart from that number and will see every later change exactly once.
+ */
+public class KPopChangeFeed implements KPopGroupListener {
+    /** Number of changes a subscription buffers when no capacity is given. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+    /** How often the log is checked for changes made by other programs. */
+    public static final long DEFAULT_POLL_INTERVAL_MS = 1000;
+
+    private static final int PAGE_SIZE = 500;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final KPopDatabaseManager manager;
+    private final long pollIntervalNanos;
+    private final Set<Subscription> subscriptions = new CopyOnWriteArraySet<>();
+
+    /**
+     * Creates a feed that checks for outside changes every {@value #DEFAULT_POLL_INTERVAL_MS} ms.
+     *
+     * @param manager connected database manager
+     */
+    public KPopChangeFeed(KPopDatabaseManager manager) {
+        this(manager, DEFAULT_POLL_INTERVAL_MS);
+    }
+
+    /**
+     * Creates a feed with a chosen poll interval.
+     *
+     * @param manager connected database manager
+     * @param pollIntervalMs milliseconds between two checks for changes made by other programs
+     */
+    public KPopChangeFeed(KPopDatabaseManager manager, long pollIntervalMs) {
+        this.manager = manager;
+        this.pollIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, pollIntervalMs));
+        manager.addGroupListener(this);
+    }
+
+    /**
+     * Starts delivering changes that come after a given point of the log.
+     *
+     * @param afterSequence sequence number of the last change the consumer has handled, 0 for the whole log
+     * @return the subscription to take changes from
+     */
+    public Subscription subscribe(long afterSequence) {
+        return subscribe(afterSequence, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Starts delivering changes with a chosen buffer size.
+     *
+     * @param afterSequence sequence number of the last change the consumer has handled, 0 for the whole log
+     * @param queueCapacity largest number of changes read ahead of the consumer
+     * @return the subscription to take changes from
+     */
+    public Subscription subscribe(long afterSequence, int queueCapacity) {
+        if (queueCapacity < 1) throw new IllegalArgumentException("Queue capacity must be at least 1.");
+        Subscription subscription = new Subscription(afterSequence, queueCapacity);
+        subscriptions.add(subscription);
+        subscription.reader.start();
+        return subscription;
+    }
+
+    /**
+     * Closes every subscription and stops listening to the manager.
+     */
+    public void close() {
+        manager.removeGroupListener(this);
+        for (Subscription subscription : subscriptions) subscription.close();
+    }
+
+    @Override
+    public void groupAdded(KPopGroup group) {
+        wakeAll();
+    }
+
+    @Override
+    public void groupUpdated(String name, KPopGroup group) {
+        wakeAll();
+    }
+
+    @Override
+    public void groupDeleted(String name) {
+        wakeAll();
+    }
+
+    private void wakeAll() {
+        for (Subscription subscription : subscriptions) LockSupport.unpark(subscription.reader);
+    }
+
+    /**
+     * An ordered stream of changes for one consumer. Not meant to be shared between consumer threads.
+     */
+    public final class Subscription implements AutoCloseable {
+        private final BlockingQueue<KPopGroupChange> queue;
+        private final Thread reader;
+        private volatile boolean closed;
+        private volatile long lastSequence;
+
+        private Subscription(long afterSequence, int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.lastSequence = afterSequence;
+            this.reader = new Thread(() -> readLog(afterSequence), "kpop-change-feed-" + THREAD_COUNT.incrementAndGet());
+            reader.setDaemon(true);
+        }
+
+        /**
+         * Reads the log into the queue until the subscription is closed.
+         */
+        private void readLog(long afterSequence) {
+            long fetched = afterSequence;
+            try {
+                while (!closed) {
+                    List<KPopGroupChange> page = manager.getChanges(fetched, Math.min(PAGE_SIZE, queue.remainingCapacity() + 1));
+                    for (KPopGroupChange change : page) {
+                        queue.put(change);
+                        fetched = change.getSequence();
+                    }
+                    if (page.isEmpty()) LockSupport.parkNanos(this, pollIntervalNanos);
+                }
+            } catch (InterruptedException e) {
+                // Closed while waiting for room in the queue
+            }
+        }
+
+        /**
+         * Returns the next change, waiting until there is one.
+         *
+         * @return the next change in commit order
+         * @throws InterruptedException if the calling thread is interrupted while waiting
+         * @throws IllegalStateException if the subscription is closed and every buffered change was taken
+         */
+        public KPopGroupChange take() throws InterruptedException {
+            while (true) {
+                KPopGroupChange change = poll(100, TimeUnit.MILLISECONDS);
+                if (change != null) return change;
+                if (closed) throw new IllegalStateException("Subscription is closed.");
+            }
+        }
+
+        /**
+         * Returns the next change, waiting at most the given time for one.
+         *
+         * @param timeout how long to wait
+         * @param unit unit of the timeout
+         * @return the next change in commit order, or null if none arrived in time
+         * @throws InterruptedException if the calling thread is interrupted while waiting
+         */
+        public KPopGroupChange poll(long timeout, TimeUnit unit) throws InterruptedException {
+            KPopGroupChange change = queue.poll(timeout, unit);
+            if (change != null) lastSequence = change.getSequence();
+            return change;
+        }
+
+        /**
+         * @return sequence number of the last change returned, to subscribe again from later
+         */
+        public long getLastSequence() {
+            return lastSequence;
+        }
+
+        /**
+         * @return number of changes read from the log but not yet taken
+         */
+        public int getBacklog() {
+            return queue.size();
+        }
+
+        /**
+         * Stops reading the log. Changes already buffered can still be taken.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+            reader.interrupt();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+import java.sql.SQLException;
+
+/**
+ * Thrown inside a transaction when a group was changed by someone else since it was read,
+ * detected by its version no longer being the one the caller expected.
+ * {@link KPopDatabaseManager#inTransaction(KPopDatabaseManager.TransactionWork)} rolls back
+ * and runs the transaction again when it sees this exception.
+ */
+public class KPopConflictException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    private final String groupName;
+    private final long expectedVersion;
+    private final long actualVersion;
+
+    /**
+     * @param groupName name of the group that changed
+     * @param expectedVersion the version the caller read
+     * @param actualVersion the version now stored
+     */
+    public KPopConflictException(String groupName, long expectedVersion, long actualVersion) {
+        super("Group " + groupName + " was changed by someone else (expected version " + expectedVersion
+                + ", found " + actualVersion + ").");
+        this.groupName = groupName;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    /**
+     * @return name of the group that changed
+     */
+    public String getGroupName() {
+        return groupName;
+    }
+
+    /**
+     * @return the version the caller read
+     */
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    /**
+     * @return the version now stored
+     */
+    public long getActualVersion() {
+        return actualVersion;
+    }
+}
@@ -0,0 +1,221 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A small pool of SQLite connections for one database file.
+ * SQLite allows many readers but only one writer at a time, so the pool keeps several
+ * read connections that threads borrow in turn and a single write connection that is
+ * handed to one thread at a time. The database is switched to WAL journal mode so
+ * readers are not blocked while a write is in progress. Every connection is tuned with
+ * synchronous=NORMAL (safe with WAL), a memory-mapped I/O window and a larger page cache,
+ * and has its own {@link KPopStatementCache}.
+ */
+public class KPopConnectionPool implements AutoCloseable {
+    /** How long SQLite waits for a lock before failing with SQLITE_BUSY. */
+    public static final int BUSY_TIMEOUT_MS = 5000;
+    /** Bytes of the database file SQLite may memory-map per connection. */
+    public static final long MMAP_SIZE = 256L * 1024 * 1024;
+    /** Page cache per connection, in KiB. */
+    public static final int CACHE_SIZE_KB = 16 * 1024;
+
+    private final Connection writer;
+    private final ReentrantLock writeLock = new ReentrantLock(true);
+    private final BlockingQueue<Connection> readers;
+    private final List<Connection> allReaders = new ArrayList<>();
+    private final Map<Connection, KPopStatementCache> statementCaches = new IdentityHashMap<>();
+
+    /**
+     * Opens the write connection and the given number of read connections.
+     * In-memory databases are private to one connection, so they get no extra readers
+     * and reads share the write connection.
+     *
+     * @param dbPath path to the SQLite .db file
+     * @param readerCount number of read connections to open
+     * @throws SQLException if any connection cannot be opened
+     */
+    public KPopConnectionPool(String dbPath, int readerCount) throws SQLException {
+        String url = "jdbc:sqlite:" + dbPath;
+        boolean inMemory = dbPath.isEmpty() || dbPath.startsWith(":memory:");
+        int count = inMemory ? 0 : Math.max(1, readerCount);
+        readers = new ArrayBlockingQueue<>(Math.max(1, count));
+
+        // Write transactions take the write lock when they begin (BEGIN IMMEDIATE). A transaction
+        // that reads first and writes later could otherwise fail at once with SQLITE_BUSY when
+        // another process is writing, instead of waiting for the busy timeout.
+        Properties writerProperties = new Properties();
+        writerProperties.setProperty("transaction_mode", "IMMEDIATE");
+        writer = DriverManager.getConnection(url, writerProperties);
+        try {
+            try (Statement stmt = writer.createStatement()) {
+                if (!inMemory) stmt.execute("PRAGMA journal_mode = WAL");
+                stmt.execute("PRAGMA synchronous = NORMAL");
+            }
+            configure(writer);
+            statementCaches.put(writer, new KPopStatementCache(writer, KPopStatementCache.DEFAULT_CAPACITY));
+            for (int i = 0; i < count; i++) {
+                Connection reader = DriverManager.getConnection(url);
+                allReaders.add(reader);
+                configure(reader);
+                try (Statement stmt = reader.createStatement()) {
+                    stmt.execute("PRAGMA query_only = 1");
+                }
+                statementCaches.put(reader, new KPopStatementCache(reader, KPopStatementCache.DEFAULT_CAPACITY));
+                readers.add(reader);
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts a transaction on a connection. If BEGIN fails, for example with SQLITE_BUSY,
+     * the driver still considers the connection to be in a transaction, and the next
+     * transaction would then run without BEGIN. The connection is put back into auto-commit
+     * mode before the error is passed on, so the transaction can simply be tried again.
+     *
+     * @param connection a connection in auto-commit mode
+     * @throws SQLException if the transaction could not be started
+     */
+    static void begin(Connection connection) throws SQLException {
+        try {
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // The driver reports that nothing was committed but still returns to auto-commit
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Applies the per-connection settings shared by readers and the writer.
+     */
+    private static void configure(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+            stmt.execute("PRAGMA mmap_size = " + MMAP_SIZE);
+            stmt.execute("PRAGMA cache_size = -" + CACHE_SIZE_KB);
+        }
+    }
+
+    /**
+     * Borrows a read connection, waiting until one is free.
+     * Must be given back with {@link #releaseReader(Connection)}.
+     *
+     * @return a read-only connection
+     * @throws SQLException if the thread is interrupted while waiting
+     */
+    public Connection acquireReader() throws SQLException {
+        if (allReaders.isEmpty()) return acquireWriter();
+        try {
+            return readers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection.", e);
+        }
+    }
+
+    /**
+     * Gives back a connection borrowed with {@link #acquireReader()}.
+     *
+     * @param connection the connection to return
+     */
+    public void releaseReader(Connection connection) {
+        if (connection == writer) {
+            releaseWriter();
+        } else {
+            readers.add(connection);
+        }
+    }
+
+    /**
+     * Takes the write connection, waiting until no other thread holds it.
+     * Must be given back with {@link #releaseWriter()}.
+     *
+     * @return the write connection
+     * @throws SQLException if the thread is interrupted while waiting
+     */
+    public Connection acquireWriter() throws SQLException {
+        try {
+            writeLock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the write connection.", e);
+        }
+        return writer;
+    }
+
+    /**
+     * Gives back the write connection.
+     */
+    public void releaseWriter() {
+        writeLock.unlock();
+    }
+
+    /**
+     * Returns the statement cache of a connection handed out by this pool.
+     * Only the thread currently holding the connection may use it.
+     *
+     * @param connection a connection borrowed from this pool
+     * @return the connection's statement cache
+     * @throws SQLException if the connection does not belong to this pool
+     */
+    public KPopStatementCache statementCache(Connection connection) throws SQLException {
+        KPopStatementCache cache = statementCaches.get(connection);
+        if (cache == null) throw new SQLException("Connection does not belong to this pool.");
+        return cache;
+    }
+
+    /**
+     * @return total number of prepared statements reused across all connections
+     */
+    public long getStatementCacheHits() {
+        long total = 0;
+        for (KPopStatementCache cache : statementCaches.values()) total += cache.getHits();
+        return total;
+    }
+
+    /**
+     * @return total number of statements that had to be prepared across all connections
+     */
+    public long getStatementCacheMisses() {
+        long total = 0;
+        for (KPopStatementCache cache : statementCaches.values()) total += cache.getMisses();
+        return total;
+    }
+
+    /**
+     * Closes every connection in the pool.
+     */
+    @Override
+    public void close() {
+        for (KPopStatementCache cache : statementCaches.values()) {
+            cache.close();
+        }
+        for (Connection reader : allReaders) {
+            closeQuietly(reader);
+        }
+        if (writer != null) closeQuietly(writer);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.out.println("Error closing connection: " + e.getMessage());
+        }
+    }
+}
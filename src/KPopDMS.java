@@ -1,5 +1,4 @@
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -10,11 +9,17 @@ public class KPopDMS {
 
     /**
      * Entry point for the command-line program.
-     * Connects to the database and displays the main menu loop.
+     * Without arguments, asks for the database and displays the main menu loop. With a database
+     * path, runs commands from a file or standard input without prompts; see {@link KPopBatch}.
      *
-     * @param args unused command-line arguments
+     * @param args none for the menu, or the database path, then optionally a command file
+     *             ("-" for standard input), --format tsv|jsonl and --batch-size n
      */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(KPopBatch.runCommandLine(args));
+        }
+
         Scanner scanner = new Scanner(System.in);
         KPopDatabaseManager manager = new KPopDatabaseManager();
 
@@ -26,6 +31,7 @@ public class KPopDMS {
             scanner.close();
             return;
         }
+        KPopGroupCache cache = new KPopGroupCache(manager);
 
         while (true) {
             System.out.println("\nK-Pop Data Management System");
@@ -34,7 +40,11 @@ public class KPopDMS {
             System.out.println("3. Update Group");
             System.out.println("4. Rank Groups");
             System.out.println("5. Delete Group");
-            System.out.println("6. Exit");
+            System.out.println("6. Import Groups");
+            System.out.println("7. Find Groups by Member");
+            System.out.println("8. Search Groups");
+            System.out.println("9. Statistics");
+            System.out.println("10. Exit");
             System.out.print("Choose an option: ");
 
             int choice = getValidInteger(scanner);
@@ -47,14 +57,12 @@ public class KPopDMS {
                     break;
 
                 case 2:
-                    List<KPopGroup> groups = manager.getGroups();
-                    if (groups.isEmpty()) {
+                    int shown = manager.forEachGroup(group -> {
+                        System.out.println(group);
+                        System.out.println("------------------------");
+                    });
+                    if (shown == 0) {
                         System.out.println("No groups available.");
-                    } else {
-                        for (KPopGroup group : groups) {
-                            System.out.println(group);
-                            System.out.println("------------------------");
-                        }
                     }
                     break;
 
@@ -67,7 +75,9 @@ public class KPopDMS {
                     break;
 
                 case 4:
-                    List<KPopGroup> rankedGroups = manager.rankGroups();
+                    System.out.print("How many top groups to show? ");
+                    int k = getValidInteger(scanner);
+                    List<KPopGroup> rankedGroups = cache.topK(k);
                     if (rankedGroups.isEmpty()) {
                         System.out.println("No groups available to rank.");
                     } else {
@@ -76,6 +86,12 @@ public class KPopDMS {
                             System.out.println((i + 1) + ". " + rankedGroups.get(i).name +
                                     " - Popularity Score: " + rankedGroups.get(i).popularityScore);
                         }
+                        System.out.print("Enter a group name to see its rank (or press Enter to skip): ");
+                        String rankName = scanner.nextLine().trim();
+                        if (!rankName.isEmpty()) {
+                            int rank = cache.getRank(rankName);
+                            System.out.println(rank > 0 ? rankName + " is ranked #" + rank + "." : "Error: Group not found.");
+                        }
                     }
                     break;
 
@@ -87,6 +103,22 @@ public class KPopDMS {
                     break;
 
                 case 6:
+                    importGroups(scanner, manager);
+                    break;
+
+                case 7:
+                    findGroupsByMember(scanner, manager);
+                    break;
+
+                case 8:
+                    searchGroups(scanner, manager);
+                    break;
+
+                case 9:
+                    System.out.println(new KPopAnalytics(manager).report());
+                    break;
+
+                case 10:
                     System.out.println("Exiting...");
                     scanner.close();
                     return;
@@ -111,12 +143,12 @@ public class KPopDMS {
         while (true) {
             System.out.print("Enter debut date (YYYY-MM-DD): ");
             debutDate = scanner.nextLine().trim();
-            if (isValidDate(debutDate)) break;
+            if (KPopValidator.isValidDate(debutDate)) break;
             System.out.println("Invalid date format! Please use YYYY-MM-DD.");
         }
 
         System.out.print("Enter members (comma-separated): ");
-        List<String> members = Arrays.asList(scanner.nextLine().split(","));
+        List<String> members = KPopValidator.splitMembers(scanner.nextLine());
 
         System.out.print("Enter agency: ");
         String agency = scanner.nextLine().trim();
@@ -124,30 +156,141 @@ public class KPopDMS {
         System.out.print("Enter latest album: ");
         String latestAlbum = scanner.nextLine().trim();
 
-        String status;
+        KPopGroupStatus status;
         while (true) {
             System.out.print("Enter status (active/disbanded/hiatus): ");
-            status = scanner.nextLine().trim().toLowerCase();
-            if (status.equals("active") || status.equals("disbanded") || status.equals("hiatus")) break;
+            status = KPopValidator.parseStatus(scanner.nextLine());
+            if (status != null) break;
             System.out.println("Invalid status! Must be: active, disbanded, or hiatus.");
         }
 
         System.out.print("Enter popularity score (number): ");
         int popularityScore = getValidInteger(scanner);
 
-        return new KPopGroup(name, debutDate, members, agency, latestAlbum, status, popularityScore);
+        return new KPopGroup(name, debutDate, members, agency, latestAlbum, status.toString(), popularityScore);
     }
 
     /**
-     * Reads and validates that user input is a valid integer.
+     * Asks for a CSV or JSONL file and bulk loads its groups into the database.
      *
-     * @param scanner Scanner to read input
-     * @return the valid integer entered by the user
+     * @param scanner Scanner for user input
+     * @param manager database manager to import into
      */
-    private static int getValidInteger(Scanner scanner) {
+    private static void importGroups(Scanner scanner, KPopDatabaseManager manager) {
+        System.out.print("Enter path to CSV or JSONL file: ");
+        String path = scanner.nextLine().trim();
+        System.out.print("Enter batch size (e.g. " + KPopDatabaseManager.DEFAULT_BATCH_SIZE + "): ");
+        int batchSize = getValidInteger(scanner);
+        if (batchSize < 1) batchSize = KPopDatabaseManager.DEFAULT_BATCH_SIZE;
+
+        try (KPopGroupReader reader = KPopGroupReader.open(path)) {
+            KPopImportResult result = manager.importGroups(reader, batchSize);
+            System.out.println(result);
+            for (String skipped : reader.getSkippedLines()) {
+                System.out.println("Skipped " + skipped);
+            }
+            for (String failure : result.getFailures()) {
+                System.out.println("Failed " + failure);
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Asks for a member name and lists the groups that member belongs to.
+     * Offers to build the member index first if the database does not have one yet.
+     *
+     * @param scanner Scanner for user input
+     * @param manager database manager to search
+     */
+    private static void findGroupsByMember(Scanner scanner, KPopDatabaseManager manager) {
+        if (!manager.isNormalizedMembers()) {
+            System.out.print("Build member index for faster lookups? (y/n): ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("y")) {
+                System.out.println(manager.enableNormalizedMembers() ? "Member index built." : "Error: Could not build member index.");
+            }
+        }
+
+        System.out.print("Enter member name: ");
+        String member = scanner.nextLine().trim();
+        List<KPopGroup> found = manager.findGroupsByMember(member);
+        if (found.isEmpty()) {
+            System.out.println("No groups found for " + member + ".");
+        } else {
+            for (KPopGroup group : found) {
+                System.out.println(group);
+                System.out.println("------------------------");
+            }
+        }
+    }
+
+    /**
+     * Asks for search criteria, skipping any left blank, and prints the matching groups.
+     * Only matching rows are read from the database.
+     *
+     * @param scanner Scanner for user input
+     * @param manager database manager to search
+     */
+    private static void searchGroups(Scanner scanner, KPopDatabaseManager manager) {
+        System.out.println("Leave any field blank to skip it.");
+        KPopGroupQuery query = new KPopGroupQuery()
+                .namePrefix(promptOptional(scanner, "Name starts with: "))
+                .agency(promptOptional(scanner, "Agency: "));
+
+        while (true) {
+            String status = promptOptional(scanner, "Status (active/disbanded/hiatus): ");
+            if (status == null) break;
+            KPopGroupStatus parsed = KPopValidator.parseStatus(status);
+            if (parsed != null) {
+                query.status(parsed.toString());
+                break;
+            }
+            System.out.println("Invalid status! Must be: active, disbanded, or hiatus.");
+        }
+
+        query.debutBetween(promptOptionalDate(scanner, "Debut on or after (YYYY-MM-DD): "),
+                promptOptionalDate(scanner, "Debut on or before (YYYY-MM-DD): "));
+        query.popularityBetween(promptOptionalInteger(scanner, "Minimum popularity score: "),
+                promptOptionalInteger(scanner, "Maximum popularity score: "));
+
+        String sort = promptOptional(scanner, "Sort by (name/popularity): ");
+        query.sortBy("popularity".equalsIgnoreCase(sort) ? KPopDatabaseManager.SortOrder.POPULARITY : KPopDatabaseManager.SortOrder.NAME);
+        Integer limit = promptOptionalInteger(scanner, "Maximum results: ");
+        if (limit != null) query.limit(limit);
+
+        List<KPopGroup> found = manager.findGroups(query);
+        if (found.isEmpty()) {
+            System.out.println("No matching groups.");
+        } else {
+            for (KPopGroup group : found) {
+                System.out.println(group);
+                System.out.println("------------------------");
+            }
+            System.out.println(found.size() + " group(s) found.");
+        }
+    }
+
+    private static String promptOptional(Scanner scanner, String prompt) {
+        System.out.print(prompt);
+        String value = scanner.nextLine().trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String promptOptionalDate(Scanner scanner, String prompt) {
         while (true) {
+            String value = promptOptional(scanner, prompt);
+            if (value == null || KPopValidator.isValidDate(value)) return value;
+            System.out.println("Invalid date format! Please use YYYY-MM-DD.");
+        }
+    }
+
+    private static Integer promptOptionalInteger(Scanner scanner, String prompt) {
+        while (true) {
+            String value = promptOptional(scanner, prompt);
+            if (value == null) return null;
             try {
-                return Integer.parseInt(scanner.nextLine().trim());
+                return Integer.parseInt(value);
             } catch (NumberFormatException e) {
                 System.out.println("Invalid input! Enter a valid number.");
             }
@@ -155,19 +298,18 @@ public class KPopDMS {
     }
 
     /**
-     * Checks if a string is a valid date in strict YYYY-MM-DD format.
+     * Reads and validates that user input is a valid integer.
      *
-     * @param dateStr date string to validate
-     * @return true if the format is valid, false otherwise
+     * @param scanner Scanner to read input
+     * @return the valid integer entered by the user
      */
-    private static boolean isValidDate(String dateStr) {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-        sdf.setLenient(false);
-        try {
-            sdf.parse(dateStr);
-            return true;
-        } catch (ParseException e) {
-            return false;
+    private static int getValidInteger(Scanner scanner) {
+        while (true) {
+            try {
+                return Integer.parseInt(scanner.nextLine().trim());
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid input! Enter a valid number.");
+            }
         }
     }
 }
@@ -1,9 +1,12 @@
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Graphical version of the K-Pop Data Management System.
@@ -12,8 +15,30 @@ import java.util.List;
 public class KPopDMSGUI {
     private JFrame frame;
     private JTable table;
-    private DefaultTableModel tableModel;
+    private KPopGroupTableModel tableModel;
     private KPopDatabaseManager manager;
+    private KPopAsyncDatabaseManager database;
+    private JLabel statusLabel;
+    private JProgressBar progressBar;
+    private JButton cancelButton;
+    private CompletableFuture<?> pendingTask;
+    private JTextField prefixFilter;
+    private JTextField agencyFilter;
+    private JComboBox<String> statusFilter;
+    private JTextField debutFromFilter;
+    private JTextField debutToFilter;
+    private JTextField minScoreFilter;
+    private JTextField maxScoreFilter;
+    private JTextField searchField;
+    private DefaultListModel<KPopSearchIndex.Match> searchResults;
+    private JScrollPane searchResultsPane;
+    private Timer searchTimer;
+    private CompletableFuture<List<KPopSearchIndex.Match>> pendingSearch;
+
+    /** How long typing has to pause before a search runs. */
+    private static final int SEARCH_DELAY_MS = 250;
+    /** Maximum number of search results shown. */
+    private static final int SEARCH_LIMIT = 50;
 
     /**
      * Launches the GUI, connects to the database, and builds the interface.
@@ -29,53 +54,224 @@ public class KPopDMSGUI {
 
         frame = new JFrame("K-Pop Data Management System");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setSize(700, 500);
+        frame.setSize(900, 550);
 
         JPanel panel = new JPanel(new BorderLayout());
 
-        String[] columnNames = {"Name", "Debut Date", "Members", "Agency", "Latest Album", "Status", "Popularity"};
-        tableModel = new DefaultTableModel(columnNames, 0);
+        database = new KPopAsyncDatabaseManager(manager, new KPopGroupCache(manager), new KPopSearchIndex(manager));
+        tableModel = new KPopGroupTableModel(database);
         table = new JTable(tableModel);
         panel.add(new JScrollPane(table), BorderLayout.CENTER);
 
+        JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        statusLabel = new JLabel("Ready");
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(false);
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> cancelTask());
+        statusPanel.add(statusLabel);
+        statusPanel.add(progressBar);
+        statusPanel.add(cancelButton);
+
+        JPanel topPanel = new JPanel(new BorderLayout());
+        topPanel.add(createFilterPanel(), BorderLayout.NORTH);
+        topPanel.add(createSearchPanel(), BorderLayout.CENTER);
+        topPanel.add(statusPanel, BorderLayout.SOUTH);
+        panel.add(topPanel, BorderLayout.NORTH);
+        panel.add(searchResultsPane, BorderLayout.EAST);
+
         JPanel buttonPanel = new JPanel();
         JButton addButton = new JButton("Add Group");
         JButton updateButton = new JButton("Update Group");
         JButton deleteButton = new JButton("Delete Group");
         JButton rankButton = new JButton("Rank Groups");
+        JButton statisticsButton = new JButton("Statistics");
 
         buttonPanel.add(addButton);
         buttonPanel.add(updateButton);
         buttonPanel.add(deleteButton);
         buttonPanel.add(rankButton);
+        buttonPanel.add(statisticsButton);
         panel.add(buttonPanel, BorderLayout.SOUTH);
 
         addButton.addActionListener(e -> addGroup());
         updateButton.addActionListener(e -> updateGroup());
         deleteButton.addActionListener(e -> deleteGroup());
         rankButton.addActionListener(e -> rankGroups());
+        statisticsButton.addActionListener(e -> showStatistics());
 
         frame.add(panel);
         updateTable();
         frame.setVisible(true);
     }
 
+    /**
+     * Builds the filter bar shown above the table.
+     *
+     * @return panel with the filter fields and buttons
+     */
+    private JPanel createFilterPanel() {
+        prefixFilter = new JTextField(8);
+        agencyFilter = new JTextField(8);
+        statusFilter = new JComboBox<>(new String[]{"any", "active", "disbanded", "hiatus"});
+        debutFromFilter = new JTextField(7);
+        debutToFilter = new JTextField(7);
+        minScoreFilter = new JTextField(3);
+        maxScoreFilter = new JTextField(3);
+        JButton filterButton = new JButton("Filter");
+        JButton clearButton = new JButton("Clear");
+
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filterPanel.add(new JLabel("Name starts with:")); filterPanel.add(prefixFilter);
+        filterPanel.add(new JLabel("Agency:")); filterPanel.add(agencyFilter);
+        filterPanel.add(new JLabel("Status:")); filterPanel.add(statusFilter);
+        filterPanel.add(new JLabel("Debut:")); filterPanel.add(debutFromFilter);
+        filterPanel.add(new JLabel("to")); filterPanel.add(debutToFilter);
+        filterPanel.add(new JLabel("Score:")); filterPanel.add(minScoreFilter);
+        filterPanel.add(new JLabel("to")); filterPanel.add(maxScoreFilter);
+        filterPanel.add(filterButton);
+        filterPanel.add(clearButton);
+
+        filterButton.addActionListener(e -> applyFilter());
+        clearButton.addActionListener(e -> clearFilter());
+        return filterPanel;
+    }
+
+    /**
+     * Reads the filter bar and shows only the matching groups. Filtering is done by the database.
+     */
+    private void applyFilter() {
+        try {
+            String debutFrom = debutFromFilter.getText().trim();
+            String debutTo = debutToFilter.getText().trim();
+            if (!debutFrom.isEmpty() && !KPopValidator.isValidDate(debutFrom)) throw new Exception("Invalid start date.");
+            if (!debutTo.isEmpty() && !KPopValidator.isValidDate(debutTo)) throw new Exception("Invalid end date.");
+            String status = (String) statusFilter.getSelectedItem();
+
+            KPopGroupQuery filter = new KPopGroupQuery()
+                    .namePrefix(emptyToNull(prefixFilter.getText()))
+                    .agency(emptyToNull(agencyFilter.getText()))
+                    .status("any".equals(status) ? null : status)
+                    .debutBetween(emptyToNull(debutFrom), emptyToNull(debutTo))
+                    .popularityBetween(parseOptionalInt(minScoreFilter.getText()), parseOptionalInt(maxScoreFilter.getText()));
+            tableModel.setFilter(filter);
+        } catch (NumberFormatException ex) {
+            showError("Error: Popularity must be a number.");
+        } catch (Exception ex) {
+            showError("Error: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Empties the filter bar and shows every group again.
+     */
+    private void clearFilter() {
+        prefixFilter.setText("");
+        agencyFilter.setText("");
+        statusFilter.setSelectedIndex(0);
+        debutFromFilter.setText("");
+        debutToFilter.setText("");
+        minScoreFilter.setText("");
+        maxScoreFilter.setText("");
+        tableModel.setFilter(new KPopGroupQuery());
+    }
+
+    /**
+     * Builds the search box. Results are listed next to the table as the user types;
+     * picking one filters the table down to that group.
+     *
+     * @return panel with the search field
+     */
+    private JPanel createSearchPanel() {
+        searchField = new JTextField(30);
+        searchResults = new DefaultListModel<>();
+        JList<KPopSearchIndex.Match> resultList = new JList<>(searchResults);
+        resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultList.addListSelectionListener(e -> {
+            KPopSearchIndex.Match match = resultList.getSelectedValue();
+            if (e.getValueIsAdjusting() || match == null) return;
+            prefixFilter.setText(match.group.name);
+            applyFilter();
+        });
+        searchResultsPane = new JScrollPane(resultList);
+        searchResultsPane.setPreferredSize(new Dimension(260, 0));
+        searchResultsPane.setVisible(false);
+
+        // Restarted on every keystroke, so a search only runs once typing pauses
+        searchTimer = new Timer(SEARCH_DELAY_MS, e -> runSearch());
+        searchTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+        });
+
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        searchPanel.add(new JLabel("Search names, albums and members:"));
+        searchPanel.add(searchField);
+        return searchPanel;
+    }
+
+    /**
+     * Searches for the text in the search box in the background, replacing any search still
+     * waiting to run. Results of an older search that arrive late are ignored.
+     */
+    private void runSearch() {
+        if (pendingSearch != null) pendingSearch.cancel(false);
+        String text = searchField.getText().trim();
+        if (text.isEmpty()) {
+            pendingSearch = null;
+            searchResults.clear();
+            searchResultsPane.setVisible(false);
+            frame.revalidate();
+            return;
+        }
+
+        CompletableFuture<List<KPopSearchIndex.Match>> search = database.search(text, SEARCH_LIMIT);
+        pendingSearch = search;
+        search.whenComplete((matches, error) -> SwingUtilities.invokeLater(() -> {
+            if (pendingSearch != search || search.isCancelled()) return;
+            pendingSearch = null;
+            if (error != null) {
+                showError("Error: " + error.getMessage());
+                return;
+            }
+            searchResults.clear();
+            searchResults.addAll(matches);
+            searchResultsPane.setVisible(true);
+            frame.revalidate();
+        }));
+    }
+
+    private static String emptyToNull(String text) {
+        String trimmed = text.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static Integer parseOptionalInt(String text) {
+        String trimmed = text.trim();
+        return trimmed.isEmpty() ? null : Integer.valueOf(trimmed);
+    }
+
     /**
      * Updates the table to display the current list of K-Pop groups.
+     * Rows are loaded page by page in the background as they scroll into view.
      */
     private void updateTable() {
-        tableModel.setRowCount(0);
-        for (KPopGroup group : manager.getGroups()) {
-            tableModel.addRow(new Object[]{
-                    group.name,
-                    group.debutDate,
-                    String.join(", ", group.members),
-                    group.agency,
-                    group.latestAlbum,
-                    group.status,
-                    group.popularityScore
-            });
-        }
+        tableModel.setOrder(KPopDatabaseManager.SortOrder.NAME);
     }
 
     /**
@@ -102,24 +298,19 @@ public class KPopDMSGUI {
         int result = JOptionPane.showConfirmDialog(frame, inputPanel, "Add Group", JOptionPane.OK_CANCEL_OPTION);
         if (result == JOptionPane.OK_OPTION) {
             try {
-                String name = nameField.getText().trim();
-                String debutDate = dateField.getText().trim();
-                if (!isValidDate(debutDate)) throw new Exception("Invalid date format.");
-                String status = statusField.getText().trim().toLowerCase();
-                if (!isValidStatus(status)) throw new Exception("Invalid status.");
-                int popularity = Integer.parseInt(popularityField.getText().trim());
-                List<String> members = List.of(membersField.getText().split(","));
-
-                KPopGroup group = new KPopGroup(name, debutDate, members,
-                        agencyField.getText().trim(),
-                        albumField.getText().trim(),
-                        status, popularity);
-
-                if (manager.addGroup(group)) {
-                    updateTable();
-                } else {
-                    showError("Failed to add group. It may already exist.");
-                }
+                KPopValidator.Result validated = KPopValidator.validate(nameField.getText(), dateField.getText(),
+                        membersField.getText(), agencyField.getText(), albumField.getText(),
+                        statusField.getText(), popularityField.getText());
+                if (!validated.isValid()) throw new Exception(validated.describeErrors());
+                KPopGroup group = validated.getGroup();
+
+                runTask("Adding " + group.name + "...", database.addGroup(group), added -> {
+                    if (added) {
+                        tableModel.groupAdded(group);
+                    } else {
+                        showError("Failed to add group. It may already exist.");
+                    }
+                });
             } catch (Exception ex) {
                 showError("Error: " + ex.getMessage());
             }
@@ -151,23 +342,19 @@ public class KPopDMSGUI {
         int result = JOptionPane.showConfirmDialog(frame, inputPanel, "Update Group", JOptionPane.OK_CANCEL_OPTION);
         if (result == JOptionPane.OK_OPTION) {
             try {
-                String debutDate = dateField.getText().trim();
-                if (!isValidDate(debutDate)) throw new Exception("Invalid date format.");
-                String status = statusField.getText().trim().toLowerCase();
-                if (!isValidStatus(status)) throw new Exception("Invalid status.");
-                int popularity = Integer.parseInt(popularityField.getText().trim());
-                List<String> members = List.of(membersField.getText().split(","));
-
-                KPopGroup updated = new KPopGroup(name, debutDate, members,
-                        agencyField.getText().trim(),
-                        albumField.getText().trim(),
-                        status, popularity);
-
-                if (manager.updateGroup(name, updated)) {
-                    updateTable();
-                } else {
-                    showError("Group not found or update failed.");
-                }
+                KPopValidator.Result validated = KPopValidator.validate(name, dateField.getText(),
+                        membersField.getText(), agencyField.getText(), albumField.getText(),
+                        statusField.getText(), popularityField.getText());
+                if (!validated.isValid()) throw new Exception(validated.describeErrors());
+                KPopGroup updated = validated.getGroup();
+
+                runTask("Updating " + name + "...", database.updateGroup(name, updated), success -> {
+                    if (success) {
+                        tableModel.groupUpdated(updated);
+                    } else {
+                        showError("Group not found or update failed.");
+                    }
+                });
             } catch (Exception ex) {
                 showError("Error: " + ex.getMessage());
             }
@@ -180,11 +367,14 @@ public class KPopDMSGUI {
     private void deleteGroup() {
         String name = JOptionPane.showInputDialog(frame, "Enter name of group to delete:");
         if (name != null && !name.trim().isEmpty()) {
-            if (manager.deleteGroup(name.trim())) {
-                updateTable();
-            } else {
-                showError("Group not found or failed to delete.");
-            }
+            String trimmed = name.trim();
+            runTask("Deleting " + trimmed + "...", database.deleteGroup(trimmed), deleted -> {
+                if (deleted) {
+                    tableModel.groupDeleted(trimmed);
+                } else {
+                    showError("Group not found or failed to delete.");
+                }
+            });
         }
     }
 
@@ -192,45 +382,99 @@ public class KPopDMSGUI {
      * Displays the list of groups sorted by popularity.
      */
     private void rankGroups() {
-        tableModel.setRowCount(0);
-        for (KPopGroup group : manager.rankGroups()) {
-            tableModel.addRow(new Object[]{
-                    group.name,
-                    group.debutDate,
-                    String.join(", ", group.members),
-                    group.agency,
-                    group.latestAlbum,
-                    group.status,
-                    group.popularityScore
-            });
-        }
+        tableModel.setOrder(KPopDatabaseManager.SortOrder.POPULARITY);
     }
 
     /**
-     * Validates that a string is a valid date in YYYY-MM-DD format.
-     *
-     * @param dateStr the date string to check
-     * @return true if valid, false otherwise
+     * Computes statistics over all groups in the background and shows them in a window with one tab per summary.
      */
-    private boolean isValidDate(String dateStr) {
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-            sdf.setLenient(false);
-            sdf.parse(dateStr);
-            return true;
-        } catch (ParseException e) {
-            return false;
-        }
+    private void showStatistics() {
+        runTask("Computing statistics...", database.statistics(), report -> {
+            DefaultTableModel agencies = readOnlyModel("Agency", "Groups", "Average score", "Lowest", "Highest");
+            for (Map.Entry<String, KPopAnalytics.Stats> entry : report.getPopularityByAgency().entrySet()) {
+                KPopAnalytics.Stats stats = entry.getValue();
+                agencies.addRow(new Object[]{entry.getKey(), stats.getCount(), String.format("%.1f", stats.getAverage()), stats.getMin(), stats.getMax()});
+            }
+            DefaultTableModel statuses = readOnlyModel("Status", "Groups");
+            report.getStatusCounts().forEach((status, count) -> statuses.addRow(new Object[]{status, count}));
+            DefaultTableModel years = readOnlyModel("Debut year", "Groups");
+            report.getDebutYearCounts().forEach((year, count) -> years.addRow(new Object[]{year, count}));
+            DefaultTableModel members = readOnlyModel("Members", "Groups");
+            report.getMemberCountHistogram().forEach((memberCount, count) -> members.addRow(new Object[]{memberCount, count}));
+
+            JTabbedPane tabs = new JTabbedPane();
+            tabs.addTab("By agency", new JScrollPane(new JTable(agencies)));
+            tabs.addTab("By status", new JScrollPane(new JTable(statuses)));
+            tabs.addTab("By debut year", new JScrollPane(new JTable(years)));
+            tabs.addTab("By member count", new JScrollPane(new JTable(members)));
+
+            KPopAnalytics.Stats popularity = report.getPopularity();
+            KPopAnalytics.Stats memberCounts = report.getMemberCounts();
+            JLabel summary = new JLabel(String.format("%d groups, average score %.1f, average of %.1f members",
+                    report.getGroupCount(), popularity.getAverage(), memberCounts.getAverage()));
+
+            JDialog dialog = new JDialog(frame, "Statistics", false);
+            dialog.add(summary, BorderLayout.NORTH);
+            dialog.add(tabs, BorderLayout.CENTER);
+            dialog.setSize(500, 400);
+            dialog.setLocationRelativeTo(frame);
+            dialog.setVisible(true);
+        });
+    }
+
+    private static DefaultTableModel readOnlyModel(String... columns) {
+        return new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
     }
 
     /**
-     * Checks if the given status is valid.
+     * Shows progress while a database task runs in the background and hands its result
+     * to the given callback on the event dispatch thread once it finishes.
      *
-     * @param status the status to validate
-     * @return true if the status is active, disbanded, or hiatus
+     * @param message text shown while the task runs
+     * @param task the running database task
+     * @param onSuccess called with the task's result unless it failed or was cancelled
+     * @param <T> type of the task's result
      */
-    private boolean isValidStatus(String status) {
-        return status.equals("active") || status.equals("disbanded") || status.equals("hiatus");
+    private <T> void runTask(String message, CompletableFuture<T> task, Consumer<T> onSuccess) {
+        pendingTask = task;
+        statusLabel.setText(message);
+        progressBar.setVisible(true);
+        cancelButton.setEnabled(true);
+
+        task.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            if (pendingTask == task) {
+                pendingTask = null;
+                progressBar.setVisible(false);
+                cancelButton.setEnabled(false);
+                statusLabel.setText("Ready");
+            }
+            if (task.isCancelled()) return;
+            if (error != null) {
+                showError("Error: " + error.getMessage());
+            } else {
+                onSuccess.accept(result);
+            }
+        }));
+    }
+
+    /**
+     * Cancels the running task. A task that has not started yet is skipped entirely.
+     * The table is reloaded afterwards in case the task had already changed the database.
+     */
+    private void cancelTask() {
+        CompletableFuture<?> task = pendingTask;
+        if (task != null && task.cancel(false)) {
+            pendingTask = null;
+            progressBar.setVisible(false);
+            cancelButton.setEnabled(false);
+            statusLabel.setText("Cancelled");
+            tableModel.refresh();
+        }
     }
 
     /**
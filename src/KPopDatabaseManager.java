@@ -1,24 +1,120 @@
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Handles all database operations for storing and retrieving K-Pop group data.
  * Supports connecting, inserting, updating, deleting, and ranking groups.
+ * All methods are safe to call from several threads: reads are spread over a pool of
+ * read connections and writes are serialized on a single write connection.
  */
 public class KPopDatabaseManager {
-    private Connection connection;
+    /**
+     * Orders in which groups can be paged through.
+     */
+    public enum SortOrder {
+        /** Alphabetical by group name. */
+        NAME,
+        /** Highest popularity score first, ties broken by name. */
+        POPULARITY
+    }
+
+    /** Number of rows sent to SQLite per batch when no batch size is given. */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final String INSERT_MEMBER_SQL = "INSERT INTO group_members (group_name, member_name, position) VALUES (?, ?, ?)";
+    private static final String DELETE_MEMBERS_SQL = "DELETE FROM group_members WHERE group_name = ?";
+    private static final String INSERT_SQL = "INSERT INTO groups (name, debut_date, members, agency, latest_album, status, popularity_score) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_CHANGE_SQL = "INSERT INTO change_log (op, group_name, before_image, after_image, changed_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_GROUP_SQL = "SELECT * FROM groups WHERE name = ?";
+    private static final String UPDATE_SCORE_SQL = "UPDATE groups SET popularity_score = ?, version = version + 1 WHERE name = ?";
+    private static final String UPDATE_GROUP_SQL = "UPDATE groups SET debut_date = ?, members = ?, agency = ?, latest_album = ?, "
+            + "status = ?, popularity_score = ?, version = version + 1 WHERE name = ?";
+    private static final String DELETE_GROUP_SQL = "DELETE FROM groups WHERE name = ?";
+    private static final String DELETE_SCORE_CHUNKS_SQL = "DELETE FROM score_chunks WHERE group_name = ?";
+
+    /** Number of rows the driver fetches per round trip when streaming, unless changed. */
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    /** Number of times {@link #inTransaction(TransactionWork)} runs a transaction that hits a conflict or a busy database. */
+    public static final int DEFAULT_TRANSACTION_ATTEMPTS = 5;
+
+    /** Number of read connections opened by {@link #connect(String)}. */
+    public static final int DEFAULT_READER_COUNT = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * A unit of database work that runs on a borrowed connection.
+     *
+     * @param <T> type of the work's result
+     */
+    interface SqlWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    private final List<KPopGroupListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * Database work that runs on a connection the caller already holds.
+     *
+     * @param <T> type of the work's result
+     */
+    interface SqlAction<T> {
+        T run() throws SQLException;
+    }
+
+    private final KPopMetrics metrics = new KPopMetrics(this::getStatementCacheHits, this::getStatementCacheMisses);
+    private volatile KPopConnectionPool pool;
+    private volatile boolean normalizedMembers;
+    private volatile int fetchSize = DEFAULT_FETCH_SIZE;
+    private volatile KPopScoreBuffer scoreBuffer;
 
     /**
      * Connects to the SQLite database using the provided file path.
+     * The groups table and its indexes are created or upgraded if needed.
      *
      * @param dbPath full path to the SQLite .db file
      * @return true if the connection was successful, false if it failed
      */
     public boolean connect(String dbPath) {
+        return connect(dbPath, DEFAULT_READER_COUNT);
+    }
+
+    /**
+     * Connects to the SQLite database with a chosen number of read connections.
+     *
+     * @param dbPath full path to the SQLite .db file
+     * @param readerCount number of connections used for concurrent reads
+     * @return true if the connection was successful, false if it failed
+     */
+    public boolean connect(String dbPath, int readerCount) {
         try {
-            connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+            KPopConnectionPool opened = new KPopConnectionPool(dbPath, readerCount);
+            Connection writer = opened.acquireWriter();
+            try {
+                new KPopSchemaMigrator().migrate(writer);
+            } catch (SQLException e) {
+                opened.close();
+                throw e;
+            } finally {
+                opened.releaseWriter();
+            }
+
+            flushPendingScores();
+            KPopConnectionPool previous = pool;
+            pool = opened;
+            if (previous != null) previous.close();
+            normalizedMembers = tableExists("group_members");
+            metrics.register(dbPath);
             return true;
         } catch (SQLException e) {
             System.out.println("Error connecting to database: " + e.getMessage());
@@ -26,6 +122,207 @@ public class KPopDatabaseManager {
         }
     }
 
+    private boolean tableExists(String table) {
+        try {
+            return withReader("tableExists", connection -> {
+                PreparedStatement stmt = prepare(connection, "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?");
+                stmt.setString(1, table);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next();
+                }
+            });
+        } catch (SQLException e) {
+            System.out.println("Error reading schema: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Switches on the normalized member storage. Creates the group_members table, which
+     * holds one row per member with an index on member_name, and fills it from the
+     * comma-separated members column in one transaction. From then on every write keeps
+     * both in sync, so the members column still works for readers that use it.
+     * Calling this again rebuilds the table from the members column.
+     *
+     * @return true if the table was created and filled
+     */
+    public boolean enableNormalizedMembers() {
+        try {
+            withWriter("enableNormalizedMembers", connection -> {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("CREATE TABLE IF NOT EXISTS group_members ("
+                            + "group_name TEXT NOT NULL, member_name TEXT NOT NULL, position INTEGER NOT NULL, "
+                            + "PRIMARY KEY (group_name, position))");
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_group_members_member ON group_members (member_name)");
+                }
+                return inTransaction(connection, () -> {
+                    try (Statement stmt = connection.createStatement()) {
+                        stmt.execute("DELETE FROM group_members");
+                    }
+                    PreparedStatement insert = prepare(connection, INSERT_MEMBER_SQL);
+                    int pending = 0;
+                    try (Statement stmt = connection.createStatement();
+                         ResultSet rs = stmt.executeQuery("SELECT name, members FROM groups")) {
+                        while (rs.next()) {
+                            pending += addMemberRows(insert, rs.getString(1), KPopValidator.splitMembers(rs.getString(2)));
+                            if (pending >= DEFAULT_BATCH_SIZE) {
+                                insert.executeBatch();
+                                pending = 0;
+                            }
+                        }
+                    }
+                    insert.executeBatch();
+                    return null;
+                });
+            });
+            normalizedMembers = true;
+            return true;
+        } catch (SQLException e) {
+            System.out.println("Error migrating members: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return true if members are also stored in the group_members table
+     */
+    public boolean isNormalizedMembers() {
+        return normalizedMembers;
+    }
+
+    /**
+     * Writes any buffered scores and closes all connections to the database.
+     */
+    public void close() {
+        KPopScoreBuffer buffer = scoreBuffer;
+        scoreBuffer = null;
+        if (buffer != null) buffer.close();
+        KPopConnectionPool current = pool;
+        pool = null;
+        if (current != null) current.close();
+        metrics.unregister();
+    }
+
+    /**
+     * Registers a listener that is told about every successful add, update and delete.
+     *
+     * @param listener the listener to add
+     */
+    public void addGroupListener(KPopGroupListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops sending change notifications to a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeGroupListener(KPopGroupListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns SQLite's data version for this process's write connection.
+     * The number changes whenever another connection, such as another program, commits
+     * a change to the database file, so it can be used to notice outside edits.
+     *
+     * @return the current data version, or -1 if it could not be read
+     */
+    public long getDataVersion() {
+        try {
+            return withWriter("getDataVersion", connection -> {
+                PreparedStatement stmt = prepare(connection, "PRAGMA data_version");
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? rs.getLong(1) : -1L;
+                }
+            });
+        } catch (SQLException e) {
+            System.out.println("Error reading data version: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Runs read-only work on a borrowed read connection.
+     * The time taken, including the wait for the connection, is recorded under the operation's name.
+     */
+    <T> T withReader(String operation, SqlWork<T> work) throws SQLException {
+        KPopConnectionPool current = requirePool();
+        long start = metrics.begin();
+        Connection connection = current.acquireReader();
+        metrics.connectionWait(false, start);
+        try {
+            T result = work.run(connection);
+            metrics.end(operation, start);
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            metrics.error(operation);
+            throw e;
+        } finally {
+            current.releaseReader(connection);
+        }
+    }
+
+    /**
+     * Runs work that changes the database on the write connection, one thread at a time.
+     * The time taken, including the wait for the connection, is recorded under the operation's name.
+     */
+    <T> T withWriter(String operation, SqlWork<T> work) throws SQLException {
+        KPopConnectionPool current = requirePool();
+        long start = metrics.begin();
+        Connection connection = current.acquireWriter();
+        metrics.connectionWait(true, start);
+        try {
+            T result = work.run(connection);
+            metrics.end(operation, start);
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            metrics.error(operation);
+            throw e;
+        } finally {
+            current.releaseWriter();
+        }
+    }
+
+    /**
+     * Returns the timing and error counts of this manager's operations.
+     *
+     * @return the metrics, also registered with JMX while connected
+     */
+    public KPopMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns a cached prepared statement for the SQL on a connection borrowed from the pool.
+     * The statement stays open for reuse, so callers only close the result sets they open.
+     */
+    PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        return requirePool().statementCache(connection).prepare(sql);
+    }
+
+    /**
+     * @return how many times a cached prepared statement was reused
+     */
+    public long getStatementCacheHits() {
+        KPopConnectionPool current = pool;
+        return current == null ? 0 : current.getStatementCacheHits();
+    }
+
+    /**
+     * @return how many times a statement had to be parsed and prepared
+     */
+    public long getStatementCacheMisses() {
+        KPopConnectionPool current = pool;
+        return current == null ? 0 : current.getStatementCacheMisses();
+    }
+
+    private KPopConnectionPool requirePool() throws SQLException {
+        KPopConnectionPool current = pool;
+        if (current == null) throw new SQLException("Not connected to a database.");
+        return current;
+    }
+
     /**
      * Retrieves all K-Pop groups from the database.
      *
@@ -35,26 +332,381 @@ public class KPopDatabaseManager {
         List<KPopGroup> groups = new ArrayList<>();
         String sql = "SELECT * FROM groups";
 
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try {
+            withReader("getGroups", connection -> {
+                PreparedStatement stmt = prepare(connection, sql);
+                try (ResultSet rs = stmt.executeQuery()) {
 
-            while (rs.next()) {
-                String name = rs.getString("name");
-                String debutDate = rs.getString("debut_date");
-                List<String> members = Arrays.asList(rs.getString("members").split(","));
-                String agency = rs.getString("agency");
-                String latestAlbum = rs.getString("latest_album");
-                String status = rs.getString("status");
-                int popularityScore = rs.getInt("popularity_score");
+                    while (rs.next()) {
+                        groups.add(withPendingScore(mapGroup(rs)));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            System.out.println("Error loading groups: " + e.getMessage());
+        }
 
-                groups.add(new KPopGroup(name, debutDate, members, agency, latestAlbum, status, popularityScore));
-            }
+        metrics.rows("getGroups", groups.size());
+        return groups;
+    }
 
+    /**
+     * Sets how many rows the driver should fetch per round trip when streaming groups.
+     *
+     * @param fetchSize number of rows per fetch, must be positive
+     */
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 1) throw new IllegalArgumentException("Fetch size must be at least 1.");
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Passes every stored group to the given action as it is read, without building a list.
+     * The statement is closed once all rows have been handed over.
+     *
+     * @param action callback run for each group
+     * @return the number of groups visited
+     */
+    public int forEachGroup(Consumer<KPopGroup> action) {
+        int[] count = {0};
+        try {
+            withReader("forEachGroup", connection -> {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.setFetchSize(fetchSize);
+                    try (ResultSet rs = stmt.executeQuery("SELECT * FROM groups")) {
+                        while (rs.next()) {
+                            action.accept(withPendingScore(mapGroup(rs)));
+                            count[0]++;
+                        }
+                    }
+                }
+                return null;
+            });
         } catch (SQLException e) {
             System.out.println("Error loading groups: " + e.getMessage());
         }
+        metrics.rows("forEachGroup", count[0]);
+        return count[0];
+    }
 
-        return groups;
+    /**
+     * Loads every stored group into a compact column-oriented table.
+     * Columns are copied straight from the result set, so no KPopGroup objects are created.
+     *
+     * @return the table, empty if loading failed
+     */
+    public KPopGroupTable loadGroupTable() {
+        flushPendingScores();
+        KPopGroupTable table = new KPopGroupTable(countGroups());
+        try {
+            withReader("loadGroupTable", connection -> {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.setFetchSize(fetchSize);
+                    try (ResultSet rs = stmt.executeQuery("SELECT name, debut_date, members, agency, latest_album, status, popularity_score FROM groups")) {
+                        while (rs.next()) {
+                            table.add(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                                    rs.getString(5), rs.getString(6), rs.getInt(7));
+                        }
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            System.out.println("Error loading groups: " + e.getMessage());
+            return new KPopGroupTable();
+        }
+        table.trimToSize();
+        metrics.rows("loadGroupTable", table.size());
+        return table;
+    }
+
+    /**
+     * Returns a lazy stream of all stored groups. Rows are read from the database only as the
+     * stream is consumed. The stream must be closed (for example with try-with-resources)
+     * to release the underlying statement and give its read connection back to the pool.
+     *
+     * @return a stream of groups backed by an open result set
+     */
+    public Stream<KPopGroup> streamGroups() {
+        KPopConnectionPool current;
+        Connection connection;
+        try {
+            current = requirePool();
+            long start = metrics.begin();
+            connection = current.acquireReader();
+            metrics.connectionWait(false, start);
+        } catch (SQLException e) {
+            System.out.println("Error loading groups: " + e.getMessage());
+            return Stream.empty();
+        }
+
+        Statement stmt;
+        ResultSet rs;
+        try {
+            stmt = connection.createStatement();
+            stmt.setFetchSize(fetchSize);
+            rs = stmt.executeQuery("SELECT * FROM groups");
+        } catch (SQLException e) {
+            current.releaseReader(connection);
+            System.out.println("Error loading groups: " + e.getMessage());
+            return Stream.empty();
+        }
+
+        Spliterator<KPopGroup> rows = new Spliterators.AbstractSpliterator<KPopGroup>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super KPopGroup> action) {
+                try {
+                    if (!rs.next()) return false;
+                    action.accept(withPendingScore(mapGroup(rs)));
+                    return true;
+                } catch (SQLException e) {
+                    System.out.println("Error loading groups: " + e.getMessage());
+                    return false;
+                }
+            }
+        };
+
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            try {
+                rs.close();
+                stmt.close();
+            } catch (SQLException e) {
+                System.out.println("Error closing statement: " + e.getMessage());
+            } finally {
+                current.releaseReader(connection);
+            }
+        });
+    }
+
+    /**
+     * Looks up a single group by name.
+     *
+     * @param name name of the group
+     * @return the group, or null if it does not exist or the lookup failed
+     */
+    public KPopGroup getGroup(String name) {
+        try {
+            return withReader("getGroup", connection -> {
+                PreparedStatement stmt = prepare(connection, "SELECT * FROM groups WHERE name = ?");
+                stmt.setString(1, name);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? withPendingScore(mapGroup(rs)) : null;
+                }
+            });
+        } catch (SQLException e) {
+            System.out.println("Error loading group: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Counts the groups stored in the database.
+     *
+     * @return number of groups, or 0 if the count failed
+     */
+    public int countGroups() {
+        return countGroups(new KPopGroupQuery());
+    }
+
+    /**
+     * Counts the groups that match a query's filters.
+     *
+     * @param query the search criteria
+     * @return number of matching groups, or 0 if the count failed
+     */
+    public int countGroups(KPopGroupQuery query) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        query.addConditions(conditions, params);
+        String sql = "SELECT COUNT(*) FROM groups" + where(conditions);
+        if (query.usesPopularity()) flushPendingScores();
+
+        try {
+            return withReader("countGroups", connection -> {
+                PreparedStatement stmt = prepare(connection, sql);
+                bindAll(stmt, params);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            });
+        } catch (SQLException e) {
+            System.out.println("Error counting groups: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Counts how many groups come before the given group in the given order.
+     * This is the row index the group has (or would have) when paging in that order.
+     *
+     * @param order the order to count in
+     * @param group the group whose position is wanted
+     * @return the number of groups ordered before it, or -1 if the count failed
+     */
+    public int countGroupsBefore(SortOrder order, KPopGroup group) {
+        return countGroupsBefore(new KPopGroupQuery().sortBy(order), group);
+    }
+
+    /**
+     * Counts how many groups matching a query come before the given group in the query's order.
+     *
+     * @param query the search criteria and order
+     * @param group the group whose position is wanted
+     * @return the number of matching groups ordered before it, or -1 if the count failed
+     */
+    public int countGroupsBefore(KPopGroupQuery query, KPopGroup group) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        query.addConditions(conditions, params);
+        if (query.getSort() == SortOrder.NAME) {
+            conditions.add("name < ?");
+        } else {
+            conditions.add("(popularity_score > ? OR (popularity_score = ? AND name < ?))");
+            params.add(group.popularityScore);
+            params.add(group.popularityScore);
+        }
+        params.add(group.name);
+        String sql = "SELECT COUNT(*) FROM groups" + where(conditions);
+        if (query.usesPopularity()) flushPendingScores();
+
+        try {
+            return withReader("countGroupsBefore", connection -> {
+                PreparedStatement stmt = prepare(connection, sql);
+                bindAll(stmt, params);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : -1;
+                }
+            });
+        } catch (SQLException e) {
+            System.out.println("Error counting groups: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Loads one page of groups in the given order.
+     *
+     * @param order the order to page through
+     * @param after last group of the previous page, or null if it is not known
+     * @param offset position of the first row of the page, used only when after is null
+     * @param limit maximum number of groups to return
+     * @return the groups on the page
+     * @see #getGroupPage(KPopGroupQuery, KPopGroup, int, int)
+     */
+    public List<KPopGroup> getGroupPage(SortOrder order, KPopGroup after, int offset, int limit) {
+        return getGroupPage(new KPopGroupQuery().sortBy(order), after, offset, limit);
+    }
+
+    /**
+     * Loads one page of the groups matching a query, in the query's order.
+     * When the last group of the previous page is known it is used as a keyset anchor,
+     * so SQLite can seek straight to the page instead of skipping over earlier rows.
+     * Otherwise the page is located with OFFSET. The query's own limit is ignored.
+     *
+     * @param query the search criteria and order
+     * @param after last group of the previous page, or null if it is not known
+     * @param offset position of the first row of the page, used only when after is null
+     * @param limit maximum number of groups to return
+     * @return the groups on the page
+     */
+    public List<KPopGroup> getGroupPage(KPopGroupQuery query, KPopGroup after, int offset, int limit) {
+        List<KPopGroup> page = new ArrayList<>(limit);
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        query.addConditions(conditions, params);
+        if (after != null) {
+            if (query.getSort() == SortOrder.NAME) {
+                conditions.add("name > ?");
+            } else {
+                conditions.add("(popularity_score < ? OR (popularity_score = ? AND name > ?))");
+                params.add(after.popularityScore);
+                params.add(after.popularityScore);
+            }
+            params.add(after.name);
+        }
+        String sql = "SELECT * FROM groups" + where(conditions) + query.orderByClause()
+                + (after == null ? " LIMIT ? OFFSET ?" : " LIMIT ?");
+        params.add(limit);
+        if (after == null) params.add(offset);
+        if (query.usesPopularity()) flushPendingScores();
+
+        try {
+            withReader("getGroupPage", connection -> {
+                PreparedStatement stmt = prepare(connection, sql);
+                bindAll(stmt, params);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        page.add(withPendingScore(mapGroup(rs)));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            System.out.println("Error loading page: " + e.getMessage());
+        }
+
+        metrics.rows("getGroupPage", page.size());
+        return page;
+    }
+
+    /**
+     * Returns the groups matching a query. Filtering, sorting and the limit are all done by
+     * SQLite in one statement, so only matching rows are read.
+     *
+     * @param query the search criteria
+     * @return matching groups in the query's order
+     */
+    public List<KPopGroup> findGroups(KPopGroupQuery query) {
+        List<KPopGroup> found = new ArrayList<>();
+        forEachGroup(query, found::add);
+        return found;
+    }
+
+    /**
+     * Passes the groups matching a query to the given action as they are read, in the query's order,
+     * without building a list.
+     *
+     * @param query the search criteria
+     * @param action callback run for each matching group
+     * @return the number of groups visited, or -1 if reading failed part way
+     */
+    public int forEachGroup(KPopGroupQuery query, Consumer<KPopGroup> action) {
+        int[] count = {0};
+        List<Object> params = new ArrayList<>();
+        String sql = query.toSql(params);
+        if (query.usesPopularity()) flushPendingScores();
+
+        try {
+            withReader("findGroups", connection -> {
+                PreparedStatement stmt = prepare(connection, sql);
+                bindAll(stmt, params);
+                stmt.setFetchSize(fetchSize);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        action.accept(withPendingScore(mapGroup(rs)));
+                        count[0]++;
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            System.out.println("Error searching groups: " + e.getMessage());
+            return -1;
+        }
+
+        metrics.rows("findGroups", count[0]);
+        return count[0];
+    }
+
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static void bindAll(PreparedStatement stmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            stmt.setObject(i + 1, params.get(i));
+        }
     }
 
     /**
@@ -64,17 +716,19 @@ public class KPopDatabaseManager {
      * @return true if the group was added successfully, false if an error occurred
      */
     public boolean addGroup(KPopGroup group) {
-        String sql = "INSERT INTO groups (name, debut_date, members, agency, latest_album, status, popularity_score) VALUES (?, ?, ?, ?, ?, ?, ?)";
-
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, group.name);
-            stmt.setString(2, group.debutDate);
-            stmt.setString(3, String.join(",", group.members));
-            stmt.setString(4, group.agency);
-            stmt.setString(5, group.latestAlbum);
-            stmt.setString(6, group.status);
-            stmt.setInt(7, group.popularityScore);
-            stmt.executeUpdate();
+        flushPendingScores();
+        KPopGroup stored = insertedImage(group);
+        try {
+            withWriter("addGroup", connection -> inTransaction(connection, () -> {
+                PreparedStatement stmt = prepare(connection, INSERT_SQL);
+                bindInsert(stmt, group);
+                stmt.executeUpdate();
+                if (normalizedMembers) replaceMembers(connection, Collections.singletonList(group));
+                logChange(connection, KPopGroupChange.Type.INSERT, stored.name, null, stored);
+                return true;
+            }));
+            group.version = stored.version;
+            for (KPopGroupListener listener : listeners) listener.groupAdded(stored);
             return true;
         } catch (SQLException e) {
             System.out.println("Error adding group: " + e.getMessage());
@@ -82,6 +736,338 @@ public class KPopDatabaseManager {
         }
     }
 
+    /**
+     * Inserts many groups using the default batch size.
+     *
+     * @param groups the groups to insert, read one at a time
+     * @return a summary of stored and rejected rows
+     * @see #importGroups(Iterator, int)
+     */
+    public KPopImportResult importGroups(Iterator<KPopGroup> groups) {
+        return importGroups(groups, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Inserts many groups in batches, committing once per batch instead of once per row.
+     * One INSERT statement is reused for the whole load. If a batch contains a bad row
+     * (for example a duplicate name), that batch is rolled back and retried row by row
+     * so only the bad rows are skipped and the rest of the load continues.
+     *
+     * @param groups the groups to insert, read one at a time
+     * @param batchSize number of rows sent and committed together
+     * @return a summary of stored and rejected rows
+     */
+    public KPopImportResult importGroups(Iterator<KPopGroup> groups, int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be at least 1.");
+        flushPendingScores();
+        KPopImportResult result = new KPopImportResult();
+        List<KPopGroup> chunk = new ArrayList<>(Math.min(batchSize, DEFAULT_BATCH_SIZE));
+
+        try {
+            withWriter("importGroups", connection -> {
+                int firstRow = 1;
+                PreparedStatement stmt = prepare(connection, INSERT_SQL);
+                KPopConnectionPool.begin(connection);
+                try {
+                    while (groups.hasNext()) {
+                        chunk.add(groups.next());
+                        if (chunk.size() == batchSize) {
+                            insertChunk(connection, stmt, chunk, firstRow, result);
+                            firstRow += chunk.size();
+                            chunk.clear();
+                        }
+                    }
+                    if (!chunk.isEmpty()) insertChunk(connection, stmt, chunk, firstRow, result);
+                } catch (SQLException e) {
+                    rollbackQuietly(connection);
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            System.out.println("Error importing groups: " + e.getMessage());
+        }
+
+        metrics.rows("importGroups", result.getImported());
+        return result;
+    }
+
+    /**
+     * Sends one chunk as a batch and commits it, falling back to row-by-row inserts if the batch fails.
+     * The versions of the inserted groups are set to 1 once their rows are committed.
+     */
+    private void insertChunk(Connection connection, PreparedStatement stmt, List<KPopGroup> chunk, int firstRow, KPopImportResult result) throws SQLException {
+        try {
+            List<KPopGroup> stored = new ArrayList<>(chunk.size());
+            for (KPopGroup group : chunk) {
+                bindInsert(stmt, group);
+                stmt.addBatch();
+                stored.add(insertedImage(group));
+            }
+            stmt.executeBatch();
+            if (normalizedMembers) replaceMembers(connection, chunk);
+            logInserts(connection, stored);
+            connection.commit();
+            result.addImported(chunk.size());
+            for (KPopGroup group : chunk) group.version = 1;
+            for (KPopGroup group : stored) {
+                for (KPopGroupListener listener : listeners) listener.groupAdded(group);
+            }
+            return;
+        } catch (SQLException e) {
+            // Drivers differ in whether they report a failed batch as BatchUpdateException
+            stmt.clearBatch();
+            connection.rollback();
+        }
+
+        // Each row gets its own savepoint, so a row whose members or log entry fail leaves no insert behind
+        List<KPopGroup> inserted = new ArrayList<>(chunk.size());
+        List<KPopGroup> stored = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            KPopGroup group = chunk.get(i);
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                bindInsert(stmt, group);
+                stmt.executeUpdate();
+                if (normalizedMembers) replaceMembers(connection, Collections.singletonList(group));
+                KPopGroup image = insertedImage(group);
+                logChange(connection, KPopGroupChange.Type.INSERT, image.name, null, image);
+                connection.releaseSavepoint(savepoint);
+                inserted.add(group);
+                stored.add(image);
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                result.addFailure(firstRow + i, group.name, e.getMessage());
+            }
+        }
+        connection.commit();
+        result.addImported(inserted.size());
+        for (KPopGroup group : inserted) group.version = 1;
+        for (KPopGroup group : stored) {
+            for (KPopGroupListener listener : listeners) listener.groupAdded(group);
+        }
+    }
+
+    /**
+     * Returns a copy of a group as a newly inserted row stores it, at version 1, for the change
+     * log and listeners. The caller's group keeps its version until the insert commits.
+     */
+    private static KPopGroup insertedImage(KPopGroup group) {
+        KPopGroup stored = new KPopGroup(group.name, group.debutDate, new ArrayList<>(group.members), group.agency,
+                group.latestAlbum, group.status, group.popularityScore);
+        stored.version = 1;
+        return stored;
+    }
+
+    /**
+     * Rewrites the group_members rows of the given groups in one batch.
+     */
+    private void replaceMembers(Connection connection, List<KPopGroup> groups) throws SQLException {
+        PreparedStatement delete = prepare(connection, DELETE_MEMBERS_SQL);
+        PreparedStatement insert = prepare(connection, INSERT_MEMBER_SQL);
+        for (KPopGroup group : groups) {
+            delete.setString(1, group.name);
+            delete.addBatch();
+            addMemberRows(insert, group.name, group.members);
+        }
+        try {
+            delete.executeBatch();
+            insert.executeBatch();
+        } finally {
+            // The statements are cached, so rows left by a failure must not reach the next batch
+            delete.clearBatch();
+            insert.clearBatch();
+        }
+    }
+
+    /**
+     * Adds one batched group_members row per member, trimming names and skipping blanks.
+     *
+     * @return number of rows added to the batch
+     */
+    private static int addMemberRows(PreparedStatement insert, String groupName, List<String> members) throws SQLException {
+        int position = 0;
+        for (String member : members) {
+            String trimmed = member.trim();
+            if (trimmed.isEmpty()) continue;
+            insert.setString(1, groupName);
+            insert.setString(2, trimmed);
+            insert.setInt(3, position++);
+            insert.addBatch();
+        }
+        return position;
+    }
+
+    /**
+     * Runs work as one transaction on a connection that is otherwise in auto-commit mode.
+     * The work is rolled back if it throws.
+     */
+    static <T> T inTransaction(Connection connection, SqlAction<T> work) throws SQLException {
+        KPopConnectionPool.begin(connection);
+        try {
+            T result = work.run();
+            connection.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            rollbackQuietly(connection);
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static void bindInsert(PreparedStatement stmt, KPopGroup group) throws SQLException {
+        stmt.setString(1, group.name);
+        stmt.setString(2, group.debutDate);
+        stmt.setString(3, String.join(",", group.members));
+        stmt.setString(4, group.agency);
+        stmt.setString(5, group.latestAlbum);
+        stmt.setString(6, group.status);
+        stmt.setInt(7, group.popularityScore);
+    }
+
+    private static void rollbackQuietly(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            System.out.println("Error rolling back: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a group on the connection that is about to change it, for the change log's before image.
+     *
+     * @return the stored group, or null if there is none with that name
+     */
+    private KPopGroup readGroup(Connection connection, String name) throws SQLException {
+        PreparedStatement stmt = prepare(connection, SELECT_GROUP_SQL);
+        stmt.setString(1, name);
+        try (ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? mapGroup(rs) : null;
+        }
+    }
+
+    /**
+     * Appends one entry to the change log inside the caller's transaction.
+     */
+    private void logChange(Connection connection, KPopGroupChange.Type type, String name, KPopGroup before, KPopGroup after) throws SQLException {
+        PreparedStatement stmt = prepare(connection, INSERT_CHANGE_SQL);
+        bindChange(stmt, type, name, before, after, System.currentTimeMillis());
+        stmt.executeUpdate();
+    }
+
+    /**
+     * Appends one insert entry per group to the change log as a single batch.
+     */
+    private void logInserts(Connection connection, List<KPopGroup> groups) throws SQLException {
+        PreparedStatement stmt = prepare(connection, INSERT_CHANGE_SQL);
+        long now = System.currentTimeMillis();
+        for (KPopGroup group : groups) {
+            bindChange(stmt, KPopGroupChange.Type.INSERT, group.name, null, group, now);
+            stmt.addBatch();
+        }
+        stmt.executeBatch();
+    }
+
+    private static void bindChange(PreparedStatement stmt, KPopGroupChange.Type type, String name,
+                                   KPopGroup before, KPopGroup after, long timestamp) throws SQLException {
+        stmt.setString(1, type.toString());
+        stmt.setString(2, name);
+        stmt.setString(3, before == null ? null : KPopJson.stringify(before));
+        stmt.setString(4, after == null ? null : KPopJson.stringify(after));
+        stmt.setLong(5, timestamp);
+    }
+
+    /**
+     * Returns the changes made after a given point of the change log, oldest first.
+     *
+     * @param afterSequence sequence number of the last change already seen, 0 to start from the beginning
+     * @param limit largest number of changes to return
+     * @return the changes in commit order, empty if there are none or an error occurred
+     */
+    public List<KPopGroupChange> getChanges(long afterSequence, int limit) {
+        List<KPopGroupChange> changes = new ArrayList<>();
+        String sql = "SELECT seq, op, group_name, before_image, after_image, changed_at FROM change_log WHERE seq > ? ORDER BY seq LIMIT ?";
+
+        try {
+            withReader("getChanges", connection -> {
+                PreparedStatement stmt = prepare(connection, sql);
+                stmt.setLong(1, afterSequence);
+                stmt.setInt(2, limit);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        long seq = rs.getLong(1);
+                        changes.add(new KPopGroupChange(seq, KPopGroupChange.Type.fromString(rs.getString(2)),
+                                rs.getString(3), parseImage(seq, rs.getString(4)), parseImage(seq, rs.getString(5)), rs.getLong(6)));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException | IllegalArgumentException e) {
+            System.out.println("Error reading changes: " + e.getMessage());
+        }
+
+        metrics.rows("getChanges", changes.size());
+        return changes;
+    }
+
+    /**
+     * Decodes a change log image without the checks new input goes through, since rows written
+     * by other programs may lack fields. An image that is not JSON at all is reported and
+     * returned as null, so the entry is still delivered and readers move past its sequence.
+     */
+    private static KPopGroup parseImage(long seq, String json) {
+        if (json == null) return null;
+        try {
+            return KPopGroupReader.fromStoredJson(KPopJson.parseObject(json));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error reading change " + seq + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the sequence number of the newest change in the log.
+     * A consumer that loads a full snapshot can read this first and then follow the log from there.
+     *
+     * @return the newest sequence number, 0 if the log is empty, or -1 if an error occurred
+     */
+    public long getLatestChangeSequence() {
+        try {
+            return withReader("getLatestChangeSequence", connection -> {
+                PreparedStatement stmt = prepare(connection, "SELECT COALESCE(MAX(seq), 0) FROM change_log");
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? rs.getLong(1) : 0L;
+                }
+            });
+        } catch (SQLException e) {
+            System.out.println("Error reading change log: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Deletes old entries from the change log once every consumer has handled them.
+     * Sequence numbers are never reused, so consumers resuming after the deleted range are not affected.
+     *
+     * @param upToSequence entries with this sequence number or lower are deleted
+     * @return number of entries deleted, or -1 if an error occurred
+     */
+    public int pruneChanges(long upToSequence) {
+        try {
+            return withWriter("pruneChanges", connection -> {
+                PreparedStatement stmt = prepare(connection, "DELETE FROM change_log WHERE seq <= ?");
+                stmt.setLong(1, upToSequence);
+                return stmt.executeUpdate();
+            });
+        } catch (SQLException e) {
+            System.out.println("Error pruning change log: " + e.getMessage());
+            return -1;
+        }
+    }
+
     /**
      * Updates an existing group's data based on name.
      *
@@ -90,23 +1076,199 @@ public class KPopDatabaseManager {
      * @return true if the update was successful, false otherwise
      */
     public boolean updateGroup(String name, KPopGroup updatedGroup) {
-        String sql = "UPDATE groups SET debut_date = ?, members = ?, agency = ?, latest_album = ?, status = ?, popularity_score = ? WHERE name = ?";
-
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, updatedGroup.debutDate);
-            stmt.setString(2, String.join(",", updatedGroup.members));
-            stmt.setString(3, updatedGroup.agency);
-            stmt.setString(4, updatedGroup.latestAlbum);
-            stmt.setString(5, updatedGroup.status);
-            stmt.setInt(6, updatedGroup.popularityScore);
-            stmt.setString(7, name);
-            return stmt.executeUpdate() > 0;
+        return updateGroup(name, updatedGroup, 0);
+    }
+
+    /**
+     * Updates a group only if it has not changed since it was read (compare-and-set).
+     * Read the group, change it, and pass the version it was read with; if another writer
+     * changed it in between, nothing is written and false is returned, so the caller can read it
+     * again instead of silently overwriting the other change. On success the new version is
+     * stored in updatedGroup.
+     *
+     * @param name name of the group to update
+     * @param updatedGroup the new group information
+     * @param expectedVersion the version the group was read with, or 0 to update whatever is stored
+     * @return true if the group was updated, false if it does not exist, its version differs, or an error occurred
+     */
+    public boolean updateGroup(String name, KPopGroup updatedGroup, long expectedVersion) {
+        flushPendingScores();
+
+        try {
+            KPopGroup after = withWriter("updateGroup", connection -> inTransaction(connection, () -> {
+                KPopGroup before = readGroup(connection, name);
+                if (before == null || (expectedVersion > 0 && before.version != expectedVersion)) return null;
+                return replaceGroup(connection, before, updatedGroup);
+            }));
+            if (after == null) return false;
+            updatedGroup.version = after.version;
+            for (KPopGroupListener listener : listeners) listener.groupUpdated(name, after);
+            return true;
         } catch (SQLException e) {
             System.out.println("Error updating group: " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Overwrites a stored group inside the caller's transaction, raising its version and logging the change.
+     *
+     * @param before the group as currently stored
+     * @return the group as now stored
+     */
+    private KPopGroup replaceGroup(Connection connection, KPopGroup before, KPopGroup updatedGroup) throws SQLException {
+        PreparedStatement stmt = prepare(connection, UPDATE_GROUP_SQL);
+        stmt.setString(1, updatedGroup.debutDate);
+        stmt.setString(2, String.join(",", updatedGroup.members));
+        stmt.setString(3, updatedGroup.agency);
+        stmt.setString(4, updatedGroup.latestAlbum);
+        stmt.setString(5, updatedGroup.status);
+        stmt.setInt(6, updatedGroup.popularityScore);
+        stmt.setString(7, before.name);
+        stmt.executeUpdate();
+        if (normalizedMembers) {
+            replaceMembers(connection, Collections.singletonList(new KPopGroup(before.name, null, updatedGroup.members, null, null, null, 0)));
+        }
+        KPopGroup after = new KPopGroup(before.name, updatedGroup.debutDate, new ArrayList<>(updatedGroup.members), updatedGroup.agency,
+                updatedGroup.latestAlbum, updatedGroup.status, updatedGroup.popularityScore);
+        after.version = before.version + 1;
+        logChange(connection, KPopGroupChange.Type.UPDATE, before.name, before, after);
+        return after;
+    }
+
+    /**
+     * Changes only a group's popularity score. With a score buffer enabled the update is queued
+     * and written later together with others; otherwise it is written at once.
+     *
+     * @param name name of the group
+     * @param score the new popularity score
+     * @return true if the update was queued or the group was found and updated
+     * @see #enableScoreBuffer(int, int, long)
+     */
+    public boolean updateScore(String name, int score) {
+        KPopScoreBuffer buffer = scoreBuffer;
+        if (buffer != null) return buffer.put(name, score);
+        return updateScores(Collections.singletonMap(name, score)) == 1;
+    }
+
+    /**
+     * Changes the popularity scores of many groups in one transaction with a batched UPDATE.
+     * Groups whose score does not change are skipped and not reported to listeners.
+     *
+     * @param scores new score per group name
+     * @return number of groups found, or -1 if the update failed and nothing was changed
+     */
+    public int updateScores(Map<String, Integer> scores) {
+        flushPendingScores();
+        try {
+            return writeScores(scores);
+        } catch (SQLException e) {
+            System.out.println("Error updating scores: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Turns on write-behind buffering for {@link #updateScore(String, int)}.
+     * Reads through this manager include scores that are still buffered: lookups and scans
+     * show them in place of the stored score, and queries that sort or filter by score flush
+     * the buffer first. Writes that replace whole rows also flush it first, so they are not
+     * overwritten by an older buffered score. {@link #close()} writes what is still buffered.
+     *
+     * @param flushSize number of buffered groups that triggers a flush
+     * @param capacity number of buffered groups at which updateScore blocks until a flush makes room
+     * @param flushIntervalMillis longest time an update stays buffered
+     */
+    public void enableScoreBuffer(int flushSize, int capacity, long flushIntervalMillis) {
+        KPopScoreBuffer previous = scoreBuffer;
+        scoreBuffer = new KPopScoreBuffer(this::writeScores, flushSize, capacity, flushIntervalMillis);
+        if (previous != null) previous.close();
+    }
+
+    /**
+     * Turns on write-behind buffering for score updates with the default thresholds.
+     */
+    public void enableScoreBuffer() {
+        enableScoreBuffer(KPopScoreBuffer.DEFAULT_FLUSH_SIZE, KPopScoreBuffer.DEFAULT_CAPACITY,
+                KPopScoreBuffer.DEFAULT_FLUSH_INTERVAL_MS);
+    }
+
+    /**
+     * Writes the buffered scores and goes back to writing every score update at once.
+     */
+    public void disableScoreBuffer() {
+        KPopScoreBuffer buffer = scoreBuffer;
+        scoreBuffer = null;
+        if (buffer != null) buffer.close();
+    }
+
+    /**
+     * @return the score buffer, or null if score updates are not buffered
+     */
+    public KPopScoreBuffer getScoreBuffer() {
+        return scoreBuffer;
+    }
+
+    /**
+     * Writes every buffered score update now. Does nothing if no buffer is enabled.
+     *
+     * @return true if nothing was left to write, false if the write failed
+     */
+    public boolean flushScores() {
+        KPopScoreBuffer buffer = scoreBuffer;
+        return buffer == null || buffer.flush();
+    }
+
+    private void flushPendingScores() {
+        KPopScoreBuffer buffer = scoreBuffer;
+        if (buffer != null && buffer.getPendingCount() > 0) buffer.flush();
+    }
+
+    /**
+     * Replaces a group's stored score with the newer one waiting in the score buffer, if any.
+     */
+    KPopGroup withPendingScore(KPopGroup group) {
+        KPopScoreBuffer buffer = scoreBuffer;
+        if (buffer == null || group == null) return group;
+        Integer pending = buffer.getPending(group.name);
+        if (pending != null) group.popularityScore = pending;
+        return group;
+    }
+
+    /**
+     * Writes scores in one transaction, logging each change, and tells listeners after the commit.
+     *
+     * @return number of groups found
+     */
+    private int writeScores(Map<String, Integer> scores) throws SQLException {
+        List<KPopGroup> changed = new ArrayList<>();
+        int found = withWriter("updateScores", connection -> inTransaction(connection, () -> {
+            PreparedStatement update = prepare(connection, UPDATE_SCORE_SQL);
+            int existing = 0;
+            for (Map.Entry<String, Integer> entry : scores.entrySet()) {
+                KPopGroup before = readGroup(connection, entry.getKey());
+                if (before == null) continue;
+                existing++;
+                if (before.popularityScore == entry.getValue()) continue;
+                update.setInt(1, entry.getValue());
+                update.setString(2, entry.getKey());
+                update.addBatch();
+                KPopGroup after = new KPopGroup(before.name, before.debutDate, before.members, before.agency,
+                        before.latestAlbum, before.status, entry.getValue());
+                after.version = before.version + 1;
+                logChange(connection, KPopGroupChange.Type.UPDATE, after.name, before, after);
+                changed.add(after);
+            }
+            if (!changed.isEmpty()) update.executeBatch();
+            return existing;
+        }));
+        metrics.rows("updateScores", changed.size());
+        for (KPopGroupListener listener : listeners) {
+            for (KPopGroup group : changed) listener.groupUpdated(group.name, group);
+        }
+        return found;
+    }
+
     /**
      * Deletes a group from the database using the group's name.
      *
@@ -114,17 +1276,371 @@ public class KPopDatabaseManager {
      * @return true if the group was successfully deleted, false otherwise
      */
     public boolean deleteGroup(String name) {
-        String sql = "DELETE FROM groups WHERE name = ?";
+        flushPendingScores();
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, name);
-            return stmt.executeUpdate() > 0;
+        try {
+            boolean deleted = withWriter("deleteGroup", connection -> inTransaction(connection, () -> {
+                KPopGroup before = readGroup(connection, name);
+                if (before == null) return false;
+                removeGroup(connection, before);
+                return true;
+            }));
+            if (deleted) {
+                for (KPopGroupListener listener : listeners) listener.groupDeleted(name);
+            }
+            return deleted;
         } catch (SQLException e) {
             System.out.println("Error deleting group: " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Deletes a stored group with its member rows and score history inside the caller's transaction
+     * and logs the change, so a later group with the same name starts without history.
+     *
+     * @param before the group as currently stored
+     */
+    private void removeGroup(Connection connection, KPopGroup before) throws SQLException {
+        PreparedStatement stmt = prepare(connection, DELETE_GROUP_SQL);
+        stmt.setString(1, before.name);
+        stmt.executeUpdate();
+        PreparedStatement history = prepare(connection, DELETE_SCORE_CHUNKS_SQL);
+        history.setString(1, before.name);
+        history.executeUpdate();
+        if (normalizedMembers) {
+            PreparedStatement members = prepare(connection, DELETE_MEMBERS_SQL);
+            members.setString(1, before.name);
+            members.executeUpdate();
+        }
+        logChange(connection, KPopGroupChange.Type.DELETE, before.name, before, null);
+    }
+
+    /**
+     * Inserts or replaces some groups and deletes others, all in one transaction; deletes and
+     * change log entries are batched. Used to bring a copy of the database up to date with only
+     * the rows that differ. The change log and listeners get the rows as stored here, so they
+     * carry this database's versions, not the source's.
+     *
+     * @param upserts groups to store, replacing any stored group with the same name
+     * @param deletes names of groups to delete; names that are not stored are ignored
+     * @return true if every change was committed, false if nothing was changed because of an error
+     */
+    public boolean applyChanges(List<KPopGroup> upserts, List<String> deletes) {
+        String upsertSql = INSERT_SQL + " ON CONFLICT(name) DO UPDATE SET debut_date = excluded.debut_date, "
+                + "members = excluded.members, agency = excluded.agency, latest_album = excluded.latest_album, "
+                + "status = excluded.status, popularity_score = excluded.popularity_score, version = groups.version + 1 RETURNING *";
+        flushPendingScores();
+        List<KPopGroup> added = new ArrayList<>();
+        List<KPopGroup> updated = new ArrayList<>();
+        List<String> deleted = new ArrayList<>();
+
+        try {
+            withWriter("applyChanges", connection -> inTransaction(connection, () -> {
+                PreparedStatement log = prepare(connection, INSERT_CHANGE_SQL);
+                long now = System.currentTimeMillis();
+                // RETURNING gives the row as this database stored it, with its own version, not the source's
+                PreparedStatement upsert = prepare(connection, upsertSql);
+                for (KPopGroup group : upserts) {
+                    KPopGroup before = readGroup(connection, group.name);
+                    bindInsert(upsert, group);
+                    KPopGroup after;
+                    try (ResultSet rs = upsert.executeQuery()) {
+                        rs.next();
+                        after = mapGroup(rs);
+                    }
+                    (before == null ? added : updated).add(after);
+                    bindChange(log, before == null ? KPopGroupChange.Type.INSERT : KPopGroupChange.Type.UPDATE, group.name, before, after, now);
+                    log.addBatch();
+                }
+
+                PreparedStatement delete = prepare(connection, DELETE_GROUP_SQL);
+                PreparedStatement deleteHistory = prepare(connection, DELETE_SCORE_CHUNKS_SQL);
+                PreparedStatement deleteMembers = normalizedMembers ? prepare(connection, DELETE_MEMBERS_SQL) : null;
+                for (String name : deletes) {
+                    KPopGroup before = readGroup(connection, name);
+                    if (before == null) continue;
+                    deleted.add(name);
+                    delete.setString(1, name);
+                    delete.addBatch();
+                    deleteHistory.setString(1, name);
+                    deleteHistory.addBatch();
+                    if (deleteMembers != null) {
+                        deleteMembers.setString(1, name);
+                        deleteMembers.addBatch();
+                    }
+                    bindChange(log, KPopGroupChange.Type.DELETE, name, before, null, now);
+                    log.addBatch();
+                }
+                delete.executeBatch();
+                deleteHistory.executeBatch();
+                if (deleteMembers != null) deleteMembers.executeBatch();
+                if (normalizedMembers && !upserts.isEmpty()) replaceMembers(connection, upserts);
+                log.executeBatch();
+                return null;
+            }));
+        } catch (SQLException e) {
+            System.out.println("Error applying changes: " + e.getMessage());
+            return false;
+        }
+
+        metrics.rows("applyChanges", upserts.size() + deleted.size());
+        for (KPopGroupListener listener : listeners) {
+            for (KPopGroup group : added) listener.groupAdded(group);
+            for (KPopGroup group : updated) listener.groupUpdated(group.name, group);
+            for (String name : deleted) listener.groupDeleted(name);
+        }
+        return true;
+    }
+
+    /**
+     * Work that runs inside one transaction started by {@link #inTransaction(TransactionWork)}.
+     *
+     * @param <T> type of the work's result
+     */
+    public interface TransactionWork<T> {
+        T run(Transaction tx) throws SQLException;
+    }
+
+    /**
+     * Reads and changes groups inside one transaction. Every change is logged and raises the
+     * group's version; listeners are told about the changes only once the transaction commits.
+     * Only valid inside the {@link TransactionWork} it was passed to, and only the methods of
+     * this class may be used there, not the manager's own methods that write.
+     */
+    public final class Transaction {
+        private final Connection connection;
+        private final List<KPopGroup> added = new ArrayList<>();
+        private final List<KPopGroup> updated = new ArrayList<>();
+        private final List<String> deleted = new ArrayList<>();
+        // New versions for the caller's groups, set only once the transaction commits
+        private final Map<KPopGroup, Long> versions = new IdentityHashMap<>();
+
+        private Transaction(Connection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * Reads a group as this transaction sees it, including its version.
+         *
+         * @param name name of the group
+         * @return the group, or null if there is none with that name
+         */
+        public KPopGroup getGroup(String name) throws SQLException {
+            return readGroup(connection, name);
+        }
+
+        /**
+         * Inserts a new group.
+         *
+         * @param group the group to add; its version is set to 1 once the transaction commits
+         * @throws SQLException if a group with the same name exists
+         */
+        public void addGroup(KPopGroup group) throws SQLException {
+            PreparedStatement stmt = prepare(connection, INSERT_SQL);
+            bindInsert(stmt, group);
+            stmt.executeUpdate();
+            if (normalizedMembers) replaceMembers(connection, Collections.singletonList(group));
+            KPopGroup stored = insertedImage(group);
+            logChange(connection, KPopGroupChange.Type.INSERT, stored.name, null, stored);
+            added.add(stored);
+            versions.put(group, 1L);
+        }
+
+        /**
+         * Replaces a group's data. If the group carries a version (as groups read through the
+         * manager do), the update only succeeds while the stored version is still the same.
+         *
+         * @param name name of the group to update
+         * @param group the new data; its version is set to the new version once the transaction commits
+         * @return true if the group was updated, false if it does not exist
+         * @throws KPopConflictException if the group was changed since it was read; the transaction is then retried
+         */
+        public boolean updateGroup(String name, KPopGroup group) throws SQLException {
+            KPopGroup before = readGroup(connection, name);
+            if (before == null) return false;
+            if (group.version > 0 && group.version != before.version) {
+                throw new KPopConflictException(name, group.version, before.version);
+            }
+            KPopGroup after = replaceGroup(connection, before, group);
+            versions.put(group, after.version);
+            updated.add(after);
+            return true;
+        }
+
+        /**
+         * Deletes a group.
+         *
+         * @param name name of the group
+         * @return true if the group was deleted, false if it does not exist
+         */
+        public boolean deleteGroup(String name) throws SQLException {
+            KPopGroup before = readGroup(connection, name);
+            if (before == null) return false;
+            removeGroup(connection, before);
+            deleted.add(name);
+            return true;
+        }
+
+        /**
+         * Moves every group of one agency to another with a single UPDATE.
+         *
+         * @param from the current agency name
+         * @param to the new agency name
+         * @return number of groups moved
+         */
+        public int renameAgency(String from, String to) throws SQLException {
+            PreparedStatement stmt = prepare(connection, "UPDATE groups SET agency = ?, version = version + 1 WHERE agency = ? RETURNING *");
+            stmt.setString(1, to);
+            stmt.setString(2, from);
+            return logSetUpdate(stmt, before -> before.agency = from);
+        }
+
+        /**
+         * Sets the status of every group matching a query's filters with one UPDATE per current
+         * status, for example marking all active groups that debuted before a year as on hiatus.
+         *
+         * @param filter the groups to change; its sort order and limit are ignored
+         * @param status the new status
+         * @return number of groups whose status changed
+         */
+        public int setStatus(KPopGroupQuery filter, KPopGroupStatus status) throws SQLException {
+            List<String> conditions = new ArrayList<>();
+            List<Object> params = new ArrayList<>();
+            filter.addConditions(conditions, params);
+            conditions.add("status = ?");
+            String sql = "UPDATE groups SET status = ?, version = version + 1" + where(conditions) + " RETURNING *";
+
+            int changed = 0;
+            for (KPopGroupStatus previous : KPopGroupStatus.values()) {
+                if (previous == status) continue;
+                PreparedStatement stmt = prepare(connection, sql);
+                stmt.setString(1, status.toString());
+                for (int i = 0; i < params.size(); i++) stmt.setObject(i + 2, params.get(i));
+                stmt.setString(params.size() + 2, previous.toString());
+                changed += logSetUpdate(stmt, before -> before.status = previous.toString());
+            }
+            return changed;
+        }
+
+        /**
+         * Runs an UPDATE ... RETURNING * and logs every returned row, rebuilding the before image
+         * from the after image with the one column the statement changed.
+         */
+        private int logSetUpdate(PreparedStatement stmt, Consumer<KPopGroup> undo) throws SQLException {
+            List<KPopGroup> rows = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) rows.add(mapGroup(rs));
+            }
+            if (rows.isEmpty()) return 0;
+
+            PreparedStatement log = prepare(connection, INSERT_CHANGE_SQL);
+            long now = System.currentTimeMillis();
+            for (KPopGroup after : rows) {
+                KPopGroup before = new KPopGroup(after.name, after.debutDate, after.members, after.agency,
+                        after.latestAlbum, after.status, after.popularityScore);
+                before.version = after.version - 1;
+                undo.accept(before);
+                bindChange(log, KPopGroupChange.Type.UPDATE, after.name, before, after, now);
+                log.addBatch();
+            }
+            log.executeBatch();
+            updated.addAll(rows);
+            return rows.size();
+        }
+    }
+
+    /**
+     * Runs work in one transaction, retrying up to {@value #DEFAULT_TRANSACTION_ATTEMPTS} times
+     * when the database is busy or a group changed since it was read.
+     *
+     * @param work the reads and changes to make; it may run more than once, so it should not have other side effects
+     * @param <T> type of the work's result
+     * @return the work's result, or null if it failed and nothing was changed
+     * @see #inTransaction(TransactionWork, int)
+     */
+    public <T> T inTransaction(TransactionWork<T> work) {
+        return inTransaction(work, DEFAULT_TRANSACTION_ATTEMPTS);
+    }
+
+    /**
+     * Runs work in one transaction, so its changes are committed all together or not at all.
+     * If the database is busy (SQLITE_BUSY or SQLITE_LOCKED) or the work throws a
+     * {@link KPopConflictException}, the transaction is rolled back and the work is run again
+     * after a short, growing pause, up to the given number of attempts. Listeners are told
+     * about the changes after the commit.
+     *
+     * @param work the reads and changes to make; it may run more than once, so it should not have other side effects
+     * @param maxAttempts how many times to run the work at most
+     * @param <T> type of the work's result
+     * @return the work's result, or null if it failed and nothing was changed
+     */
+    public <T> T inTransaction(TransactionWork<T> work, int maxAttempts) {
+        if (maxAttempts < 1) throw new IllegalArgumentException("Need at least one attempt.");
+        flushPendingScores();
+        for (int attempt = 1; ; attempt++) {
+            Transaction[] tx = new Transaction[1];
+            try {
+                T result = withWriter("transaction", connection -> inTransaction(connection, () -> {
+                    tx[0] = new Transaction(connection);
+                    return work.run(tx[0]);
+                }));
+                // Only now, since a rolled-back attempt must leave the caller's groups as they were
+                tx[0].versions.forEach((group, version) -> group.version = version);
+                for (KPopGroupListener listener : listeners) {
+                    for (KPopGroup group : tx[0].added) listener.groupAdded(group);
+                    for (KPopGroup group : tx[0].updated) listener.groupUpdated(group.name, group);
+                    for (String name : tx[0].deleted) listener.groupDeleted(name);
+                }
+                return result;
+            } catch (SQLException e) {
+                if (attempt >= maxAttempts || !isRetryable(e)) {
+                    System.out.println("Error in transaction: " + e.getMessage());
+                    return null;
+                }
+                metrics.error("transactionRetry");
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(1, 10L << attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves every group of one agency to another in one transaction with a single UPDATE,
+     * for example after an agency merger.
+     *
+     * @param from the current agency name
+     * @param to the new agency name
+     * @return number of groups moved, or -1 if the update failed
+     */
+    public int renameAgency(String from, String to) {
+        Integer moved = inTransaction(tx -> tx.renameAgency(from, to));
+        return moved == null ? -1 : moved;
+    }
+
+    /**
+     * Sets the status of every group matching a query's filters in one transaction.
+     *
+     * @param filter the groups to change
+     * @param status the new status
+     * @return number of groups whose status changed, or -1 if the update failed
+     * @see Transaction#setStatus(KPopGroupQuery, KPopGroupStatus)
+     */
+    public int setStatus(KPopGroupQuery filter, KPopGroupStatus status) {
+        Integer changed = inTransaction(tx -> tx.setStatus(filter, status));
+        return changed == null ? -1 : changed;
+    }
+
+    private static boolean isRetryable(SQLException e) {
+        if (e instanceof KPopConflictException) return true;
+        int code = e.getErrorCode() & 0xFF;
+        return code == 5 || code == 6 || String.valueOf(e.getMessage()).contains("SQLITE_BUSY");
+    }
+
     /**
      * Returns a list of groups ordered by popularity from highest to lowest.
      *
@@ -133,26 +1649,163 @@ public class KPopDatabaseManager {
     public List<KPopGroup> rankGroups() {
         List<KPopGroup> ranked = new ArrayList<>();
         String sql = "SELECT * FROM groups ORDER BY popularity_score DESC";
+        flushPendingScores();
 
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try {
+            withReader("rankGroups", connection -> {
+                PreparedStatement stmt = prepare(connection, sql);
+                try (ResultSet rs = stmt.executeQuery()) {
 
-            while (rs.next()) {
-                String name = rs.getString("name");
-                String debutDate = rs.getString("debut_date");
-                List<String> members = Arrays.asList(rs.getString("members").split(","));
-                String agency = rs.getString("agency");
-                String latestAlbum = rs.getString("latest_album");
-                String status = rs.getString("status");
-                int popularityScore = rs.getInt("popularity_score");
+                    while (rs.next()) {
+                        ranked.add(mapGroup(rs));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            System.out.println("Error ranking groups: " + e.getMessage());
+        }
 
-                ranked.add(new KPopGroup(name, debutDate, members, agency, latestAlbum, status, popularityScore));
-            }
+        metrics.rows("rankGroups", ranked.size());
+        return ranked;
+    }
 
+    /**
+     * Finds every group that has a member with the given name.
+     * With normalized member storage this is an index seek on group_members, and each
+     * group's full member list is loaded in the same joined query. Otherwise the members
+     * column of every group is scanned.
+     *
+     * @param member the member's name
+     * @return groups the member belongs to, ordered by name
+     */
+    public List<KPopGroup> findGroupsByMember(String member) {
+        List<KPopGroup> found = new ArrayList<>();
+        String target = member.trim();
+
+        try {
+            withReader("findGroupsByMember", connection -> {
+                if (!normalizedMembers) {
+                    PreparedStatement stmt = prepare(connection, "SELECT * FROM groups WHERE instr(members, ?) > 0 ORDER BY name");
+                    stmt.setString(1, target);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            KPopGroup group = withPendingScore(mapGroup(rs));
+                            for (String m : group.members) {
+                                if (m.trim().equals(target)) {
+                                    found.add(group);
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                    return null;
+                }
+
+                // A subquery, not a join on the matches, so a name listed twice in one group does not repeat its members
+                PreparedStatement stmt = prepare(connection, "SELECT g.*, all_members.member_name AS member FROM groups g "
+                        + "JOIN group_members all_members ON all_members.group_name = g.name "
+                        + "WHERE g.name IN (SELECT group_name FROM group_members WHERE member_name = ?) "
+                        + "ORDER BY g.name, all_members.position");
+                stmt.setString(1, target);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    KPopGroup current = null;
+                    while (rs.next()) {
+                        String name = rs.getString("name");
+                        if (current == null || !current.name.equals(name)) {
+                            current = new KPopGroup(name, rs.getString("debut_date"), new ArrayList<>(),
+                                    rs.getString("agency"), rs.getString("latest_album"), rs.getString("status"),
+                                    rs.getInt("popularity_score"));
+                            current.version = rs.getLong("version");
+                            found.add(withPendingScore(current));
+                        }
+                        current.members.add(rs.getString("member"));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            System.out.println("Error searching members: " + e.getMessage());
+        }
+
+        metrics.rows("findGroupsByMember", found.size());
+        return found;
+    }
+
+    /**
+     * Returns the k most popular groups. The limit is applied by SQLite, which walks the
+     * popularity index and stops after k rows instead of sorting the whole table.
+     *
+     * @param k number of groups wanted
+     * @return up to k groups, most popular first
+     */
+    public List<KPopGroup> topK(int k) {
+        List<KPopGroup> top = new ArrayList<>(Math.max(0, Math.min(k, DEFAULT_FETCH_SIZE)));
+        String sql = "SELECT * FROM groups ORDER BY popularity_score DESC, name LIMIT ?";
+        flushPendingScores();
+
+        try {
+            withReader("topK", connection -> {
+                PreparedStatement stmt = prepare(connection, sql);
+                stmt.setInt(1, k);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        top.add(mapGroup(rs));
+                    }
+                }
+                return null;
+            });
         } catch (SQLException e) {
             System.out.println("Error ranking groups: " + e.getMessage());
         }
 
-        return ranked;
+        metrics.rows("topK", top.size());
+        return top;
+    }
+
+    /**
+     * Returns the 1-based popularity rank of a group, where 1 is the most popular
+     * and ties are broken by name.
+     *
+     * @param name name of the group
+     * @return the group's rank, or -1 if it does not exist or the lookup failed
+     */
+    public int getRank(String name) {
+        String sql = "SELECT (SELECT COUNT(*) FROM groups g WHERE g.popularity_score > t.popularity_score "
+                + "OR (g.popularity_score = t.popularity_score AND g.name < t.name)) + 1 FROM groups t WHERE t.name = ?";
+        flushPendingScores();
+
+        try {
+            return withReader("getRank", connection -> {
+                PreparedStatement stmt = prepare(connection, sql);
+                stmt.setString(1, name);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : -1;
+                }
+            });
+        } catch (SQLException e) {
+            System.out.println("Error ranking group: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Builds a KPopGroup from the current row of a result set.
+     *
+     * @param rs result set positioned on a groups row
+     * @return the group stored in that row
+     */
+    private static KPopGroup mapGroup(ResultSet rs) throws SQLException {
+        String name = rs.getString("name");
+        String debutDate = rs.getString("debut_date");
+        List<String> members = KPopValidator.splitMembers(rs.getString("members"));
+        String agency = rs.getString("agency");
+        String latestAlbum = rs.getString("latest_album");
+        String status = rs.getString("status");
+        int popularityScore = rs.getInt("popularity_score");
+
+        KPopGroup group = new KPopGroup(name, debutDate, members, agency, latestAlbum, status, popularityScore);
+        group.version = rs.getLong("version");
+        return group;
     }
 }
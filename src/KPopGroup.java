@@ -12,6 +12,8 @@ public class KPopGroup {
     public String latestAlbum;
     public String status;
     public int popularityScore;
+    /** Row version, raised by every change to the stored group; 0 if not known. */
+    public long version;
 
     /**
      * Creates a new KPopGroup object with all the necessary group info.
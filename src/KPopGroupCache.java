@@ -0,0 +1,250 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-through cache of K-Pop groups in front of KPopDatabaseManager.
+ * Groups are kept in a concurrent map keyed by name, and the popularity ranking is kept
+ * ready in a {@link KPopRankingIndex} so repeated views and rankings do not go back to SQLite. The cache listens to the
+ * manager, so adds, updates and deletes made through it patch the cached entries in place.
+ * Changes made to the .db file by other programs are noticed through SQLite's data version
+ * and cause the cache to be reloaded.
+ *
+ * The cache keeps its own copies of the groups: groups passed in by listeners are copied
+ * before they are stored, and groups handed out are copies too, so callers may change them
+ * freely without changing the cache or its ranking.
+ */
+public class KPopGroupCache implements KPopGroupListener {
+    /** Maximum number of groups kept in memory, unless changed. */
+    public static final int DEFAULT_MAX_SIZE = 100_000;
+    /** Minimum time between two checks for outside changes, unless changed. */
+    public static final long DEFAULT_CHECK_INTERVAL_MS = 1000;
+
+    private final KPopDatabaseManager manager;
+    private final int maxSize;
+    private final long checkIntervalMs;
+    private final ConcurrentHashMap<String, KPopGroup> groups = new ConcurrentHashMap<>();
+    private volatile boolean complete;
+    private volatile KPopRankingIndex ranking;
+    private volatile long dataVersion;
+    private volatile long lastCheck;
+
+    /**
+     * Creates a cache with the default size bound and check interval.
+     *
+     * @param manager connected database manager
+     */
+    public KPopGroupCache(KPopDatabaseManager manager) {
+        this(manager, DEFAULT_MAX_SIZE, DEFAULT_CHECK_INTERVAL_MS);
+    }
+
+    /**
+     * Creates a cache and starts listening to the manager's changes.
+     *
+     * @param manager connected database manager
+     * @param maxSize maximum number of groups kept in memory
+     * @param checkIntervalMs minimum time between two checks for outside changes
+     */
+    public KPopGroupCache(KPopDatabaseManager manager, int maxSize, long checkIntervalMs) {
+        this.manager = manager;
+        this.maxSize = maxSize;
+        this.checkIntervalMs = checkIntervalMs;
+        this.dataVersion = manager.getDataVersion();
+        this.lastCheck = System.currentTimeMillis();
+        manager.addGroupListener(this);
+    }
+
+    /**
+     * Returns a group by name, loading it from the database if it is not cached. A score still
+     * waiting in the manager's score buffer is shown, as the manager's own reads do.
+     *
+     * @param name name of the group
+     * @return a copy of the group, or null if it does not exist
+     */
+    public KPopGroup getGroup(String name) {
+        checkForOutsideChanges();
+        KPopGroup group = groups.get(name);
+        if (group != null || complete) return manager.withPendingScore(copyOf(group));
+
+        group = manager.getGroup(name);
+        if (group != null) cache(copyOf(group));
+        return group;
+    }
+
+    /**
+     * Returns every group. The whole table is cached on first use if it fits within the size bound;
+     * larger tables are read from the database each time.
+     *
+     * @return list of all groups
+     */
+    public List<KPopGroup> getGroups() {
+        checkForOutsideChanges();
+        if (complete || loadAll()) return copyAll(groups.values());
+        return manager.getGroups();
+    }
+
+    /**
+     * Returns every group ordered by popularity from highest to lowest.
+     *
+     * @return ranked list of groups
+     */
+    public List<KPopGroup> rankGroups() {
+        KPopRankingIndex ranked = getRanking();
+        return ranked != null ? copyAll(ranked.page(0, Integer.MAX_VALUE)) : manager.rankGroups();
+    }
+
+    /**
+     * Returns the k most popular groups.
+     *
+     * @param k number of groups wanted
+     * @return up to k groups, most popular first
+     */
+    public List<KPopGroup> topK(int k) {
+        KPopRankingIndex ranked = getRanking();
+        return ranked != null ? copyAll(ranked.topK(k)) : manager.topK(k);
+    }
+
+    /**
+     * Returns the 1-based popularity rank of a group.
+     *
+     * @param name name of the group
+     * @return the group's rank, or -1 if it does not exist
+     */
+    public int getRank(String name) {
+        KPopRankingIndex ranked = getRanking();
+        return ranked != null ? ranked.rankOf(name) : manager.getRank(name);
+    }
+
+    /**
+     * Returns a slice of the cached popularity ranking.
+     *
+     * @param offset position of the first group to return
+     * @param limit maximum number of groups to return
+     * @return the groups in that range, or null if the table is too large to rank in memory
+     */
+    public List<KPopGroup> getRankingPage(int offset, int limit) {
+        KPopRankingIndex ranked = getRanking();
+        return ranked != null ? copyAll(ranked.page(offset, limit)) : null;
+    }
+
+    /**
+     * Drops every cached group. The next read reloads from the database.
+     */
+    public synchronized void invalidate() {
+        groups.clear();
+        complete = false;
+        ranking = null;
+    }
+
+    /**
+     * Reloads the cache if another connection has changed the database since the last check.
+     * Checks are skipped if the previous one was less than the check interval ago.
+     */
+    public void checkForOutsideChanges() {
+        long now = System.currentTimeMillis();
+        if (now - lastCheck < checkIntervalMs) return;
+        lastCheck = now;
+
+        long version = manager.getDataVersion();
+        if (version != dataVersion) {
+            dataVersion = version;
+            invalidate();
+        }
+    }
+
+    @Override
+    public synchronized void groupAdded(KPopGroup group) {
+        group = copyOf(group);
+        cache(group);
+        KPopRankingIndex ranked = ranking;
+        if (ranked != null) ranked.put(group);
+    }
+
+    @Override
+    public synchronized void groupUpdated(String name, KPopGroup group) {
+        if (!complete && !groups.containsKey(name)) return;
+        KPopGroup stored = copyOf(group);
+        stored.name = name;
+        groups.put(name, stored);
+        KPopRankingIndex ranked = ranking;
+        if (ranked != null) ranked.put(stored);
+    }
+
+    @Override
+    public synchronized void groupDeleted(String name) {
+        groups.remove(name);
+        KPopRankingIndex ranked = ranking;
+        if (ranked != null) ranked.remove(name);
+    }
+
+    /**
+     * Returns the warm ranking, building it from the cached groups if needed.
+     *
+     * @return the ranking, or null if the table is too large to hold in memory
+     */
+    private KPopRankingIndex getRanking() {
+        checkForOutsideChanges();
+        KPopRankingIndex ranked = ranking;
+        if (ranked != null) return ranked;
+
+        synchronized (this) {
+            if (ranking == null && (complete || loadAll())) {
+                KPopRankingIndex index = new KPopRankingIndex();
+                for (KPopGroup group : groups.values()) index.put(group);
+                ranking = index;
+            }
+            return ranking;
+        }
+    }
+
+    /**
+     * Loads the whole table into the cache if it fits within the size bound.
+     *
+     * @return true if the cache now holds every group
+     */
+    private synchronized boolean loadAll() {
+        if (complete) return true;
+        if (manager.countGroups() > maxSize) return false;
+
+        groups.clear();
+        manager.forEachGroup(group -> groups.put(group.name, group));
+        complete = groups.size() <= maxSize;
+        return complete;
+    }
+
+    /**
+     * Adds a group, evicting another one first if the cache is full.
+     * Once anything has been evicted the cache no longer holds the full table.
+     */
+    private void cache(KPopGroup group) {
+        if (!groups.containsKey(group.name) && groups.size() >= maxSize) {
+            Iterator<String> it = groups.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+            complete = false;
+            ranking = null;
+        }
+        groups.put(group.name, group);
+    }
+
+    /**
+     * Copies a group, including its member list and version, so the copy shares nothing with it.
+     */
+    private static KPopGroup copyOf(KPopGroup group) {
+        if (group == null) return null;
+        KPopGroup copy = new KPopGroup(group.name, group.debutDate,
+                group.members == null ? null : new ArrayList<>(group.members), group.agency,
+                group.latestAlbum, group.status, group.popularityScore);
+        copy.version = group.version;
+        return copy;
+    }
+
+    private static List<KPopGroup> copyAll(Iterable<KPopGroup> source) {
+        List<KPopGroup> copies = new ArrayList<>();
+        for (KPopGroup group : source) copies.add(copyOf(group));
+        return copies;
+    }
+}
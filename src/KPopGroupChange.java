@@ -0,0 +1,108 @@
+/**
+ * One entry of the change log: an insert, update or delete of a group, with the group as it
+ * was before and after the change. Entries are numbered in commit order, so a consumer that
+ * remembers the last sequence number it handled can continue from there later.
+ */
+public class KPopGroupChange {
+    /**
+     * Kinds of change recorded in the log.
+     */
+    public enum Type {
+        INSERT, UPDATE, DELETE;
+
+        /**
+         * @return the name stored in the change_log table
+         */
+        @Override
+        public String toString() {
+            return name().toLowerCase();
+        }
+
+        /**
+         * Reads a type stored in the change_log table.
+         *
+         * @param text "insert", "update" or "delete"
+         * @return the matching type
+         * @throws IllegalArgumentException if the text is not a known type
+         */
+        public static Type fromString(String text) {
+            return valueOf(text.toUpperCase());
+        }
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final String groupName;
+    private final KPopGroup before;
+    private final KPopGroup after;
+    private final long timestamp;
+
+    /**
+     * Creates a change log entry.
+     *
+     * @param sequence position of the change in the log, starting at 1
+     * @param type kind of change
+     * @param groupName name of the changed group
+     * @param before the group before the change, null for an insert
+     * @param after the group after the change, null for a delete
+     * @param timestamp commit time in milliseconds since the epoch
+     */
+    public KPopGroupChange(long sequence, Type type, String groupName, KPopGroup before, KPopGroup after, long timestamp) {
+        this.sequence = sequence;
+        this.type = type;
+        this.groupName = groupName;
+        this.before = before;
+        this.after = after;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return position of the change in the log; pass it to resume after this change
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return kind of change
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return name of the changed group
+     */
+    public String getGroupName() {
+        return groupName;
+    }
+
+    /**
+     * @return the group before the change, null for an insert
+     */
+    public KPopGroup getBefore() {
+        return before;
+    }
+
+    /**
+     * @return the group after the change, null for a delete
+     */
+    public KPopGroup getAfter() {
+        return after;
+    }
+
+    /**
+     * @return commit time in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return a short description such as "#42 update BTS"
+     */
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + type + " " + groupName;
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * Receives a notification every time KPopDatabaseManager successfully changes a group.
+ * Callbacks run on the thread that made the change, right after it was committed,
+ * so they should be quick and must not write to the database themselves.
+ */
+public interface KPopGroupListener {
+
+    /**
+     * Called after a group was inserted.
+     *
+     * @param group the new group
+     */
+    void groupAdded(KPopGroup group);
+
+    /**
+     * Called after a group's data was replaced.
+     *
+     * @param name name of the updated group
+     * @param group the group's new data
+     */
+    void groupUpdated(String name, KPopGroup group);
+
+    /**
+     * Called after a group was deleted.
+     *
+     * @param name name of the deleted group
+     */
+    void groupDeleted(String name);
+}
@@ -0,0 +1,258 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search criteria for K-Pop groups, turned into a single parameterized SQL query.
+ * Every criterion is optional; unset criteria do not appear in the SQL at all. The SQL text
+ * only depends on which criteria are set, not on their values, so the compiled statement
+ * is reused from the statement cache for repeated searches of the same shape.
+ */
+public class KPopGroupQuery {
+    private String agency;
+    private String status;
+    private String debutFrom;
+    private String debutTo;
+    private Integer minPopularity;
+    private Integer maxPopularity;
+    private String namePrefix;
+    private KPopDatabaseManager.SortOrder sort = KPopDatabaseManager.SortOrder.NAME;
+    private int limit;
+
+    /**
+     * Only groups managed by this agency.
+     *
+     * @param agency exact agency name, or null for any
+     * @return this query
+     */
+    public KPopGroupQuery agency(String agency) {
+        this.agency = agency;
+        return this;
+    }
+
+    /**
+     * Only groups with this status.
+     *
+     * @param status active, disbanded or hiatus, or null for any
+     * @return this query
+     */
+    public KPopGroupQuery status(String status) {
+        this.status = status;
+        return this;
+    }
+
+    /**
+     * Only groups that debuted within a date range. Both ends are inclusive.
+     *
+     * @param from earliest debut date in YYYY-MM-DD format, or null for no lower bound
+     * @param to latest debut date in YYYY-MM-DD format, or null for no upper bound
+     * @return this query
+     */
+    public KPopGroupQuery debutBetween(String from, String to) {
+        this.debutFrom = from;
+        this.debutTo = to;
+        return this;
+    }
+
+    /**
+     * Only groups whose popularity score is within a range. Both ends are inclusive.
+     *
+     * @param min lowest score, or null for no lower bound
+     * @param max highest score, or null for no upper bound
+     * @return this query
+     */
+    public KPopGroupQuery popularityBetween(Integer min, Integer max) {
+        this.minPopularity = min;
+        this.maxPopularity = max;
+        return this;
+    }
+
+    /**
+     * Only groups whose name starts with the given text (case-sensitive).
+     *
+     * @param prefix start of the name, or null for any
+     * @return this query
+     */
+    public KPopGroupQuery namePrefix(String prefix) {
+        this.namePrefix = prefix;
+        return this;
+    }
+
+    /**
+     * Sets the order of the results.
+     *
+     * @param sort the order, NAME by default
+     * @return this query
+     */
+    public KPopGroupQuery sortBy(KPopDatabaseManager.SortOrder sort) {
+        this.sort = sort;
+        return this;
+    }
+
+    /**
+     * Limits the number of results.
+     *
+     * @param limit maximum number of groups, or 0 for no limit
+     * @return this query
+     */
+    public KPopGroupQuery limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * @return the order of the results
+     */
+    public KPopDatabaseManager.SortOrder getSort() {
+        return sort;
+    }
+
+    /**
+     * @return the maximum number of results, or 0 for no limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return true if any filter criterion is set
+     */
+    public boolean hasFilters() {
+        return agency != null || status != null || debutFrom != null || debutTo != null
+                || minPopularity != null || maxPopularity != null || namePrefix != null;
+    }
+
+    /**
+     * @return true if the query filters or sorts by popularity score
+     */
+    boolean usesPopularity() {
+        return sort == KPopDatabaseManager.SortOrder.POPULARITY || minPopularity != null || maxPopularity != null;
+    }
+
+    /**
+     * Checks a group against the filter criteria in memory, the same way the SQL would.
+     *
+     * @param group the group to check
+     * @return true if the group matches every criterion
+     */
+    public boolean matches(KPopGroup group) {
+        if (agency != null && !agency.equals(group.agency)) return false;
+        if (status != null && !status.equals(group.status)) return false;
+        // A missing debut date never matches a debut range, as NULL never compares true in SQL
+        if ((debutFrom != null || debutTo != null) && group.debutDate == null) return false;
+        if (debutFrom != null && group.debutDate.compareTo(debutFrom) < 0) return false;
+        if (debutTo != null && group.debutDate.compareTo(debutTo) > 0) return false;
+        if (minPopularity != null && group.popularityScore < minPopularity) return false;
+        if (maxPopularity != null && group.popularityScore > maxPopularity) return false;
+        return namePrefix == null || group.name.startsWith(namePrefix);
+    }
+
+    /**
+     * Returns a copy with the same criteria but a different order.
+     *
+     * @param sort the order of the copy
+     * @return a new query
+     */
+    public KPopGroupQuery withSort(KPopDatabaseManager.SortOrder sort) {
+        KPopGroupQuery copy = new KPopGroupQuery()
+                .agency(agency)
+                .status(status)
+                .debutBetween(debutFrom, debutTo)
+                .popularityBetween(minPopularity, maxPopularity)
+                .namePrefix(namePrefix)
+                .limit(limit);
+        return copy.sortBy(sort);
+    }
+
+    /**
+     * Appends the SQL conditions for the set criteria and their parameters.
+     * Debut dates are stored as YYYY-MM-DD text, so comparing them as strings is a date comparison.
+     * The name prefix is written as a range so the index on name can be used.
+     *
+     * @param conditions list the conditions are added to, to be joined with AND
+     * @param params list the parameter values are added to, in order
+     */
+    void addConditions(List<String> conditions, List<Object> params) {
+        if (agency != null) {
+            conditions.add("agency = ?");
+            params.add(agency);
+        }
+        if (status != null) {
+            conditions.add("status = ?");
+            params.add(status);
+        }
+        if (debutFrom != null) {
+            conditions.add("debut_date >= ?");
+            params.add(debutFrom);
+        }
+        if (debutTo != null) {
+            conditions.add("debut_date <= ?");
+            params.add(debutTo);
+        }
+        if (minPopularity != null) {
+            conditions.add("popularity_score >= ?");
+            params.add(minPopularity);
+        }
+        if (maxPopularity != null) {
+            conditions.add("popularity_score <= ?");
+            params.add(maxPopularity);
+        }
+        if (namePrefix != null && !namePrefix.isEmpty()) {
+            String upper = prefixUpperBound(namePrefix);
+            if (upper == null) {
+                conditions.add("name >= ?");
+                params.add(namePrefix);
+            } else {
+                conditions.add("name >= ? AND name < ?");
+                params.add(namePrefix);
+                params.add(upper);
+            }
+        }
+    }
+
+    /**
+     * Returns the smallest string above every name starting with the prefix, by incrementing
+     * its last code point. SQLite compares names as UTF-8 bytes, which sort in code point order,
+     * so appending a character would miss names that continue with a higher code point.
+     *
+     * @param prefix a non-empty prefix
+     * @return the exclusive upper bound, or null if the prefix has none
+     */
+    static String prefixUpperBound(String prefix) {
+        int end = prefix.length();
+        while (end > 0) {
+            int last = prefix.codePointBefore(end);
+            end -= Character.charCount(last);
+            if (last < Character.MAX_CODE_POINT) {
+                int next = last + 1 == Character.MIN_SURROGATE ? Character.MAX_SURROGATE + 1 : last + 1;
+                return prefix.substring(0, end) + new String(Character.toChars(next));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the ORDER BY clause for the sort order, with a leading space
+     */
+    String orderByClause() {
+        return sort == KPopDatabaseManager.SortOrder.NAME ? " ORDER BY name" : " ORDER BY popularity_score DESC, name";
+    }
+
+    /**
+     * Builds the complete SQL for this query.
+     *
+     * @param params list the parameter values are added to, in order
+     * @return the SQL text
+     */
+    String toSql(List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        addConditions(conditions, params);
+        StringBuilder sql = new StringBuilder("SELECT * FROM groups");
+        if (!conditions.isEmpty()) sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        sql.append(orderByClause());
+        if (limit > 0) {
+            sql.append(" LIMIT ?");
+            params.add(limit);
+        }
+        return sql.toString();
+    }
+}
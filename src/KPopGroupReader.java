@@ -0,0 +1,233 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams K-Pop groups from a CSV or JSONL file one line at a time.
+ * Only the current line is held in memory, so files of any size can be imported.
+ * Lines that cannot be parsed are skipped and remembered instead of stopping the import.
+ */
+public class KPopGroupReader implements Iterator<KPopGroup>, Closeable {
+
+    /**
+     * Supported input formats.
+     */
+    public enum Format {
+        CSV, JSONL;
+
+        /**
+         * Picks a format based on the file extension.
+         *
+         * @param path path of the input file
+         * @return JSONL for .jsonl and .json files, CSV otherwise
+         */
+        public static Format forPath(String path) {
+            String lower = path.toLowerCase();
+            return lower.endsWith(".jsonl") || lower.endsWith(".json") ? JSONL : CSV;
+        }
+    }
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final List<String> skippedLines = new ArrayList<>();
+    private KPopGroup next;
+    private int lineNumber;
+    private boolean finished;
+
+    /**
+     * Creates a reader over the given character stream.
+     *
+     * @param in the source to read from
+     * @param format the format of the source
+     */
+    public KPopGroupReader(Reader in, Format format) {
+        this.reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        this.format = format;
+    }
+
+    /**
+     * Opens a file for reading, choosing the format from its extension.
+     *
+     * @param path path of the CSV or JSONL file
+     * @return a reader over the file
+     * @throws IOException if the file cannot be opened
+     */
+    public static KPopGroupReader open(String path) throws IOException {
+        return new KPopGroupReader(Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8), Format.forPath(path));
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && !finished) {
+            String line;
+            try {
+                line = reader.readLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (line == null) {
+                finished = true;
+                break;
+            }
+            lineNumber++;
+            if (line.trim().isEmpty()) continue;
+            if (format == Format.CSV && lineNumber == 1 && line.startsWith("name,")) continue;
+
+            try {
+                KPopValidator.Result result = format == Format.CSV ? parseCsv(line) : parseJson(line);
+                if (result.isValid()) {
+                    next = result.getGroup();
+                } else {
+                    skippedLines.add("Line " + lineNumber + ": " + result.describeErrors());
+                }
+            } catch (IllegalArgumentException e) {
+                skippedLines.add("Line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public KPopGroup next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        KPopGroup group = next;
+        next = null;
+        return group;
+    }
+
+    /**
+     * @return a message for every line that could not be parsed
+     */
+    public List<String> getSkippedLines() {
+        return skippedLines;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Parses a CSV line with the columns
+     * name, debut_date, members, agency, latest_album, status, popularity_score.
+     * Fields containing commas (such as members) must be wrapped in double quotes.
+     * The fields are then checked by {@link KPopValidator}.
+     */
+    private KPopValidator.Result parseCsv(String line) {
+        List<String> fields = new ArrayList<>(7);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) throw new IllegalArgumentException("Unterminated quoted field.");
+        fields.add(field.toString().trim());
+
+        if (fields.size() != 7) {
+            throw new IllegalArgumentException("Expected 7 columns but found " + fields.size() + ".");
+        }
+        return KPopValidator.validate(fields.get(0), fields.get(1), fields.get(2),
+                fields.get(3), fields.get(4), fields.get(5), fields.get(6));
+    }
+
+    /**
+     * Parses a JSON object line and checks its fields. Members may be a JSON array or a comma-separated string.
+     */
+    private KPopValidator.Result parseJson(String line) {
+        return KPopValidator.validate(fromJson(KPopJson.parseObject(line)));
+    }
+
+    /**
+     * Builds a group from a parsed JSON object with the same field names as the groups table.
+     *
+     * @param obj the parsed object; members may be a JSON array or a comma-separated string
+     * @return the group
+     * @throws IllegalArgumentException if a required field is missing or the score is not a whole number
+     */
+    static KPopGroup fromJson(Map<String, Object> obj) {
+        KPopGroup group = new KPopGroup(requireText(obj, "name"), requireText(obj, "debut_date"), members(obj),
+                text(obj, "agency"), text(obj, "latest_album"), requireText(obj, "status").toLowerCase(),
+                parseScore(obj.get("popularity_score")));
+        Object version = obj.get("version");
+        if (version instanceof Number) group.version = ((Number) version).longValue();
+        return group;
+    }
+
+    /**
+     * Builds a group from a JSON object written by the program itself, such as a change log
+     * image, without requiring any field. Rows written by other programs may lack a status or
+     * a date, and such an image must still be readable.
+     *
+     * @param obj the parsed object; members may be a JSON array or a comma-separated string
+     * @return the group, with null for missing text fields and 0 for a missing or invalid score
+     */
+    static KPopGroup fromStoredJson(Map<String, Object> obj) {
+        long parsed = KPopValidator.parseScoreValue(obj.get("popularity_score"));
+        KPopGroup group = new KPopGroup(text(obj, "name"), text(obj, "debut_date"), members(obj), text(obj, "agency"),
+                text(obj, "latest_album"), text(obj, "status"), parsed == Long.MIN_VALUE ? 0 : (int) parsed);
+        Object version = obj.get("version");
+        if (version instanceof Number) group.version = ((Number) version).longValue();
+        return group;
+    }
+
+    /**
+     * Reads the members of a JSON object, given as an array or a comma-separated string.
+     * Null array elements are skipped; names are split and trimmed when the group is validated.
+     */
+    private static List<String> members(Map<String, Object> obj) {
+        List<String> members = new ArrayList<>();
+        Object rawMembers = obj.get("members");
+        if (rawMembers instanceof List) {
+            for (Object member : (List<?>) rawMembers) {
+                if (member != null) members.add(member.toString());
+            }
+        } else if (rawMembers != null) {
+            members.addAll(KPopValidator.splitMembers(rawMembers.toString()));
+        }
+        return members;
+    }
+
+    private static int parseScore(Object value) {
+        long score = KPopValidator.parseScoreValue(value);
+        if (score == Long.MIN_VALUE) throw new IllegalArgumentException("Invalid group: " + KPopValidator.scoreError());
+        return (int) score;
+    }
+
+    private static String requireText(Map<String, Object> obj, String key) {
+        String value = text(obj, key);
+        if (value == null || value.isEmpty()) throw new IllegalArgumentException("Missing field: " + key);
+        return value;
+    }
+
+    private static String text(Map<String, Object> obj, String key) {
+        Object value = obj.get(key);
+        return value == null ? null : value.toString().trim();
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * The status a K-Pop group can have.
+ * The database stores the lower-case name, which is also what {@link #toString()} returns.
+ */
+public enum KPopGroupStatus {
+    ACTIVE, DISBANDED, HIATUS;
+
+    private static final KPopGroupStatus[] VALUES = values();
+
+    private final String text = name().toLowerCase();
+
+    /**
+     * Looks up a status by the text stored in the database.
+     *
+     * @param text active, disbanded or hiatus, in any case
+     * @return the matching status, or null if the text is not a known status
+     */
+    public static KPopGroupStatus fromString(String text) {
+        if (text == null) return null;
+        for (KPopGroupStatus status : VALUES) {
+            if (status.text.equalsIgnoreCase(text)) return status;
+        }
+        return null;
+    }
+
+    /**
+     * Looks up a status by its position in the declaration order.
+     *
+     * @param code the status's ordinal, or a negative number for no status
+     * @return the matching status, or null for a negative code
+     */
+    static KPopGroupStatus fromCode(int code) {
+        return code < 0 ? null : VALUES[code];
+    }
+
+    /**
+     * @return the status as stored in the database, e.g. "active"
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+}
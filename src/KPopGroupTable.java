@@ -0,0 +1,328 @@
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact, column-oriented storage for a large number of groups.
+ * Instead of one KPopGroup object (and its strings and member list) per row, every field is
+ * kept in its own primitive array: the debut date as an epoch day, the status as a byte, the
+ * agency and album as codes into a {@link KPopStringDictionary}, and the score as an int.
+ * Names and member lists are stored as UTF-8 bytes in one shared byte array. A million groups
+ * take tens of megabytes this way, and scanning a single column such as the score reads
+ * memory sequentially. Rows are only turned back into KPopGroup objects when asked for.
+ * Rows can be appended but not changed, so a table is meant to be a snapshot of the database.
+ * Not thread-safe while rows are being added.
+ */
+public class KPopGroupTable {
+    /** Epoch day stored for a debut date that is missing or not in YYYY-MM-DD format. */
+    public static final int NO_DATE = KPopValidator.NO_DATE;
+
+    private int size;
+    private int[] debutDays;
+    private byte[] statuses;
+    private int[] agencies;
+    private int[] albums;
+    private int[] scores;
+    private int[] nameStarts;
+    private int[] memberStarts;
+    private int[] textEnds;
+    private byte[] text;
+    private int textSize;
+    private final KPopStringDictionary agencyNames = new KPopStringDictionary();
+    private final KPopStringDictionary albumNames = new KPopStringDictionary();
+
+    /**
+     * Creates an empty table.
+     */
+    public KPopGroupTable() {
+        this(1024);
+    }
+
+    /**
+     * Creates an empty table with room for the given number of rows before it has to grow.
+     *
+     * @param capacity expected number of rows
+     */
+    public KPopGroupTable(int capacity) {
+        int rows = Math.max(16, capacity);
+        debutDays = new int[rows];
+        statuses = new byte[rows];
+        agencies = new int[rows];
+        albums = new int[rows];
+        scores = new int[rows];
+        nameStarts = new int[rows];
+        memberStarts = new int[rows];
+        textEnds = new int[rows];
+        text = new byte[rows * 32];
+    }
+
+    /**
+     * Builds a table holding every group in a list.
+     *
+     * @param groups the groups to store
+     * @return the filled table
+     */
+    public static KPopGroupTable of(List<KPopGroup> groups) {
+        KPopGroupTable table = new KPopGroupTable(groups.size());
+        for (KPopGroup group : groups) table.add(group);
+        return table;
+    }
+
+    /**
+     * Appends a group.
+     *
+     * @param group the group to store
+     * @return the row the group was stored in
+     */
+    public int add(KPopGroup group) {
+        return add(group.name, group.debutDate, String.join(",", group.members),
+                group.agency, group.latestAlbum, group.status, group.popularityScore);
+    }
+
+    /**
+     * Appends a group given as the raw column values of a groups row.
+     *
+     * @param members comma-separated member names, as stored in the members column
+     * @return the row the group was stored in
+     */
+    int add(String name, String debutDate, String members, String agency, String latestAlbum, String status, int popularityScore) {
+        if (size == scores.length) growRows();
+        int row = size++;
+        debutDays[row] = KPopValidator.toEpochDay(debutDate);
+        KPopGroupStatus parsed = KPopGroupStatus.fromString(status);
+        statuses[row] = (byte) (parsed == null ? -1 : parsed.ordinal());
+        agencies[row] = agencyNames.encode(agency);
+        albums[row] = albumNames.encode(latestAlbum);
+        scores[row] = popularityScore;
+        nameStarts[row] = textSize;
+        appendText(name);
+        memberStarts[row] = textSize;
+        appendText(members);
+        textEnds[row] = textSize;
+        return row;
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Turns a row back into a KPopGroup.
+     *
+     * @param row row index
+     * @return a new group object with the row's data
+     */
+    public KPopGroup getGroup(int row) {
+        return new KPopGroup(getName(row), getDebutDate(row), getMembers(row),
+                getAgency(row), getLatestAlbum(row), statusText(row), getPopularityScore(row));
+    }
+
+    /**
+     * @param row row index
+     * @return the group's name
+     */
+    public String getName(int row) {
+        check(row);
+        return new String(text, nameStarts[row], memberStarts[row] - nameStarts[row], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param row row index
+     * @return the debut date as days since 1970-01-01, or {@link #NO_DATE}
+     */
+    public int getDebutEpochDay(int row) {
+        check(row);
+        return debutDays[row];
+    }
+
+    /**
+     * @param row row index
+     * @return the debut date in YYYY-MM-DD format, or an empty string if it was not a valid date
+     */
+    public String getDebutDate(int row) {
+        int day = getDebutEpochDay(row);
+        return day == NO_DATE ? "" : LocalDate.ofEpochDay(day).toString();
+    }
+
+    /**
+     * @param row row index
+     * @return the member names
+     */
+    public List<String> getMembers(int row) {
+        check(row);
+        return KPopValidator.splitMembers(new String(text, memberStarts[row], textEnds[row] - memberStarts[row], StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Counts a group's members in the stored bytes without decoding the names. Like
+     * {@link KPopValidator#splitMembers(String)}, only segments between commas that are not
+     * blank count, so "A,,B" or a trailing comma gives the same count as the member list.
+     *
+     * @param row row index
+     * @return number of members, 0 if the members column is empty
+     */
+    public int getMemberCount(int row) {
+        check(row);
+        int end = textEnds[row];
+        int count = 0;
+        boolean blank = true;
+        for (int i = memberStarts[row]; i < end; i++) {
+            int b = text[i] & 0xFF;
+            if (b == ',') {
+                if (!blank) count++;
+                blank = true;
+            } else if (b > ' ') {
+                // Bytes of multi-byte UTF-8 characters are all above ' ' too
+                blank = false;
+            }
+        }
+        return blank ? count : count + 1;
+    }
+
+    /**
+     * @param row row index
+     * @return the agency, or null if the group has none
+     */
+    public String getAgency(int row) {
+        return agencyNames.decode(getAgencyCode(row));
+    }
+
+    /**
+     * Returns the agency as its dictionary code, which is cheaper to group or compare by than the name.
+     *
+     * @param row row index
+     * @return the code in {@link #getAgencyNames()}, or {@link KPopStringDictionary#NULL_CODE}
+     */
+    public int getAgencyCode(int row) {
+        check(row);
+        return agencies[row];
+    }
+
+    /**
+     * @param row row index
+     * @return the latest album, or null if the group has none
+     */
+    public String getLatestAlbum(int row) {
+        check(row);
+        return albumNames.decode(albums[row]);
+    }
+
+    /**
+     * @param row row index
+     * @return the status, or null if the group has none
+     */
+    public KPopGroupStatus getStatus(int row) {
+        check(row);
+        return KPopGroupStatus.fromCode(statuses[row]);
+    }
+
+    /**
+     * @param row row index
+     * @return the popularity score
+     */
+    public int getPopularityScore(int row) {
+        check(row);
+        return scores[row];
+    }
+
+    /**
+     * @return the dictionary the agency codes refer to
+     */
+    public KPopStringDictionary getAgencyNames() {
+        return agencyNames;
+    }
+
+    /**
+     * Returns the rows whose popularity score is within a range, found by scanning the score column.
+     *
+     * @param min lowest score, inclusive
+     * @param max highest score, inclusive
+     * @return matching row indexes in row order
+     */
+    public int[] rowsWithScoreBetween(int min, int max) {
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            int score = scores[row];
+            if (score < min || score > max) continue;
+            if (count == rows.length) rows = Arrays.copyOf(rows, count * 2);
+            rows[count++] = row;
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Returns every row ordered by popularity score from highest to lowest.
+     * Rows with equal scores keep their row order.
+     *
+     * @return row indexes, most popular first
+     */
+    public int[] rowsByPopularity() {
+        // Sort (complemented score, row) pairs packed into longs, which needs no objects per row;
+        // unlike negation, the complement also reverses Integer.MIN_VALUE
+        long[] keys = new long[size];
+        for (int row = 0; row < size; row++) {
+            keys[row] = ((long) ~scores[row] << 32) | row;
+        }
+        Arrays.sort(keys);
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++) rows[i] = (int) keys[i];
+        return rows;
+    }
+
+    /**
+     * Shrinks the internal arrays to the number of rows stored, releasing unused space.
+     */
+    public void trimToSize() {
+        resizeRows(size);
+        text = Arrays.copyOf(text, textSize);
+    }
+
+    /**
+     * Estimates the memory used by the table's arrays and dictionaries.
+     *
+     * @return approximate size in bytes
+     */
+    public long estimatedBytes() {
+        long rows = (long) scores.length * (4 * 7 + 1);
+        return rows + text.length + 96L * (agencyNames.size() + albumNames.size());
+    }
+
+    private String statusText(int row) {
+        KPopGroupStatus status = getStatus(row);
+        return status == null ? null : status.toString();
+    }
+
+    private void check(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+    }
+
+    private void appendText(String s) {
+        if (s == null) return;
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (textSize + bytes.length > text.length) {
+            text = Arrays.copyOf(text, Math.max(text.length * 2, textSize + bytes.length));
+        }
+        System.arraycopy(bytes, 0, text, textSize, bytes.length);
+        textSize += bytes.length;
+    }
+
+    private void growRows() {
+        resizeRows(Math.max(16, scores.length * 2));
+    }
+
+    private void resizeRows(int capacity) {
+        debutDays = Arrays.copyOf(debutDays, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        agencies = Arrays.copyOf(agencies, capacity);
+        albums = Arrays.copyOf(albums, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+        nameStarts = Arrays.copyOf(nameStarts, capacity);
+        memberStarts = Arrays.copyOf(memberStarts, capacity);
+        textEnds = Arrays.copyOf(textEnds, capacity);
+    }
+}
@@ -0,0 +1,249 @@
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Table model that shows K-Pop groups one page at a time instead of loading the whole table.
+ * Pages are fetched on a background thread when the table first asks for one of their rows,
+ * and only a limited number of pages are kept, dropping the least recently used one first.
+ * Single added, updated or deleted groups are patched into the cached pages so the rest of
+ * the table does not have to be reloaded. All page bookkeeping happens on the Swing event
+ * dispatch thread.
+ */
+public class KPopGroupTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    /** Number of rows fetched per page. */
+    public static final int PAGE_SIZE = 100;
+    /** Maximum number of pages kept in memory at once. */
+    public static final int MAX_CACHED_PAGES = 20;
+
+    private static final String[] COLUMN_NAMES = {"Name", "Debut Date", "Members", "Agency", "Latest Album", "Status", "Popularity"};
+
+    private final KPopAsyncDatabaseManager database;
+    private final Map<Integer, List<KPopGroup>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<KPopGroup>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    private final Map<Integer, KPopGroup> pageAnchors = new HashMap<>();
+    private final Set<Integer> loadingPages = new HashSet<>();
+    private KPopGroupQuery query = new KPopGroupQuery();
+    private int rowCount;
+    /** Bumped when the row count is reloaded, so an older count is ignored. */
+    private int generation;
+    /** Bumped whenever cached pages are dropped, so pages loaded before that are ignored. */
+    private int pageGeneration;
+
+    /**
+     * Creates a model that reads its rows through the given background database access.
+     *
+     * @param database asynchronous access to a connected database
+     */
+    public KPopGroupTableModel(KPopAsyncDatabaseManager database) {
+        this.database = database;
+    }
+
+    /**
+     * Changes the order rows are shown in and reloads the table.
+     *
+     * @param order the new order
+     */
+    public void setOrder(KPopDatabaseManager.SortOrder order) {
+        this.query = query.withSort(order);
+        refresh();
+    }
+
+    /**
+     * Shows only the groups matching a query's filters, keeping the current order, and reloads the table.
+     *
+     * @param filter the search criteria; its sort order and limit are ignored
+     */
+    public void setFilter(KPopGroupQuery filter) {
+        this.query = filter.withSort(query.getSort()).limit(0);
+        refresh();
+    }
+
+    /**
+     * Drops all cached pages and reloads the row count in the background.
+     */
+    public void refresh() {
+        int current = ++generation;
+        pageGeneration++;
+        pages.clear();
+        pageAnchors.clear();
+        loadingPages.clear();
+        database.countGroups(query).thenAccept(count -> SwingUtilities.invokeLater(() -> {
+            if (current != generation) return;
+            rowCount = count;
+            fireTableDataChanged();
+        }));
+    }
+
+    /**
+     * Shows a newly added group at its sorted position without reloading the other rows.
+     *
+     * @param group the group that was added to the database
+     */
+    public void groupAdded(KPopGroup group) {
+        if (!query.matches(group)) return;
+        int current = generation;
+        database.countGroupsBefore(query, group).thenAccept(row -> SwingUtilities.invokeLater(() -> {
+            if (current != generation) return;
+            if (row < 0) {
+                refresh();
+                return;
+            }
+            rowCount++;
+            dropPagesFrom(row / PAGE_SIZE);
+            fireTableRowsInserted(row, row);
+        }));
+    }
+
+    /**
+     * Replaces a group's row after it was updated in the database.
+     * If the row is not cached, or the update moves it in the current order or out of the
+     * current filter, the table is refreshed instead.
+     *
+     * @param group the group's new data
+     */
+    public void groupUpdated(KPopGroup group) {
+        int row = findCachedRow(group.name);
+        if (row < 0) {
+            refresh();
+            return;
+        }
+        List<KPopGroup> page = pages.get(row / PAGE_SIZE);
+        KPopGroup previous = page.get(row % PAGE_SIZE);
+        boolean moved = query.getSort() == KPopDatabaseManager.SortOrder.POPULARITY
+                && previous.popularityScore != group.popularityScore;
+        if (moved || !query.matches(group)) {
+            refresh();
+            return;
+        }
+        page.set(row % PAGE_SIZE, group);
+        fireTableRowsUpdated(row, row);
+    }
+
+    /**
+     * Removes a group's row after it was deleted from the database.
+     * If the row is not cached the table is refreshed instead.
+     *
+     * @param name name of the deleted group
+     */
+    public void groupDeleted(String name) {
+        int row = findCachedRow(name);
+        if (row < 0) {
+            refresh();
+            return;
+        }
+        rowCount--;
+        dropPagesFrom(row / PAGE_SIZE);
+        fireTableRowsDeleted(row, row);
+    }
+
+    /**
+     * Returns the group shown on a row if its page is loaded.
+     *
+     * @param row table row index
+     * @return the group, or null if the page is still loading
+     */
+    public KPopGroup getGroupAt(int row) {
+        List<KPopGroup> page = pages.get(row / PAGE_SIZE);
+        if (page == null) {
+            requestPage(row / PAGE_SIZE);
+            return null;
+        }
+        int index = row % PAGE_SIZE;
+        return index < page.size() ? page.get(index) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        KPopGroup group = getGroupAt(row);
+        if (group == null) return column == 0 ? "Loading..." : "";
+
+        switch (column) {
+            case 0: return group.name;
+            case 1: return group.debutDate;
+            case 2: return String.join(", ", group.members);
+            case 3: return group.agency;
+            case 4: return group.latestAlbum;
+            case 5: return group.status;
+            default: return group.popularityScore;
+        }
+    }
+
+    /**
+     * Starts loading a page in the background unless it is already being loaded.
+     * A page that fails to load is requested again the next time one of its rows is shown.
+     */
+    private void requestPage(int pageIndex) {
+        if (!loadingPages.add(pageIndex)) return;
+
+        int current = pageGeneration;
+        KPopGroupQuery pageQuery = query;
+        KPopGroup anchor = pageAnchors.get(pageIndex - 1);
+        database.getGroupPage(pageQuery, anchor, pageIndex * PAGE_SIZE, PAGE_SIZE).whenComplete((rows, error) -> SwingUtilities.invokeLater(() -> {
+            if (current != pageGeneration) return;
+            loadingPages.remove(pageIndex);
+            if (error != null) {
+                System.out.println("Error loading page: " + error.getMessage());
+                return;
+            }
+            pages.put(pageIndex, rows);
+            if (!rows.isEmpty()) pageAnchors.put(pageIndex, rows.get(rows.size() - 1));
+
+            int first = pageIndex * PAGE_SIZE;
+            int last = Math.min(first + PAGE_SIZE, rowCount) - 1;
+            if (last >= first) fireTableRowsUpdated(first, last);
+        }));
+    }
+
+    /**
+     * Finds the row of a group among the cached pages.
+     *
+     * @return the row index, or -1 if the group is not cached
+     */
+    private int findCachedRow(String name) {
+        for (Map.Entry<Integer, List<KPopGroup>> entry : pages.entrySet()) {
+            List<KPopGroup> page = entry.getValue();
+            for (int i = 0; i < page.size(); i++) {
+                if (page.get(i).name.equals(name)) return entry.getKey() * PAGE_SIZE + i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Forgets every page from the given one onwards, since their rows have shifted.
+     * Earlier pages and their keyset anchors are still correct and are kept.
+     */
+    private void dropPagesFrom(int pageIndex) {
+        pageGeneration++;
+        pages.keySet().removeIf(p -> p >= pageIndex);
+        pageAnchors.keySet().removeIf(p -> p >= pageIndex);
+        loadingPages.clear();
+    }
+}
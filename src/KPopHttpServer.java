@@ -0,0 +1,467 @@
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless HTTP/JSON interface to the K-Pop database, for other programs to query and edit groups.
+ * Requests are handled concurrently by a pool of worker threads. Large listings are written to
+ * the client row by row as they are read, instead of being built in memory first.
+ *
+ * Every read response carries an ETag made of SQLite's data version and a count of the changes
+ * made through this server. A client that sends the tag back in If-None-Match gets an empty
+ * 304 reply without the database being touched as long as nothing has changed. Scores
+ * waiting in the manager's score buffer count as changes too, since reads already show them.
+ * If reading fails after a listing has started streaming, the array is left unterminated so
+ * the client can tell the reply is incomplete.
+ *
+ * Endpoints:
+ * <pre>
+ * GET    /groups?sort=name|popularity&amp;prefix=&amp;agency=&amp;status=&amp;debut_from=&amp;debut_to=&amp;min_score=&amp;max_score=&amp;offset=&amp;limit=
+ * GET    /groups/{name}
+ * POST   /groups            (JSON group in the body)
+ * PUT    /groups/{name}     (JSON group in the body; with "version" it only succeeds if unchanged, else 409)
+ * DELETE /groups/{name}
+ * GET    /rank?k=10
+ * GET    /rank/{name}
+ * GET    /search?q=text&amp;limit=20
+ * GET    /metrics
+ * </pre>
+ */
+public class KPopHttpServer implements KPopGroupListener {
+    /** Port used when none is given. */
+    public static final int DEFAULT_PORT = 8080;
+    /** Number of worker threads used when none is given. */
+    public static final int DEFAULT_THREADS = Math.max(16, 4 * Runtime.getRuntime().availableProcessors());
+    /**
+     * Minimum time between two reads of SQLite's data version for the ETag. The version is read
+     * on the writer connection, so it is not read on every request. For this long after another
+     * program commits, a conditional request may still get 304 for the old data.
+     */
+    public static final long VERSION_CHECK_INTERVAL_MS = 1000;
+
+    private static final int MAX_PAGE_SIZE = 10_000;
+
+    private final KPopDatabaseManager manager;
+    private final KPopGroupCache cache;
+    private final KPopSearchIndex searchIndex;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long dataVersion;
+    private volatile long lastVersionCheck;
+
+    /**
+     * Creates a server for a connected manager. Call {@link #start()} to begin accepting requests.
+     *
+     * @param manager connected database manager
+     * @param port TCP port to listen on, 0 for any free port
+     * @param threads number of worker threads handling requests
+     * @throws IOException if the port cannot be opened
+     */
+    public KPopHttpServer(KPopDatabaseManager manager, int port, int threads) throws IOException {
+        this.manager = manager;
+        this.cache = new KPopGroupCache(manager);
+        this.searchIndex = new KPopSearchIndex(manager);
+        this.dataVersion = manager.getDataVersion();
+        this.lastVersionCheck = System.currentTimeMillis();
+        manager.addGroupListener(this);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "kpop-http-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(workers);
+        server.createContext("/groups", exchange -> handle(exchange, this::handleGroups));
+        server.createContext("/rank", exchange -> handle(exchange, this::handleRank));
+        server.createContext("/search", exchange -> handle(exchange, this::handleSearch));
+        server.createContext("/metrics", exchange -> handle(exchange, this::handleMetrics));
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waits up to a second for running ones to finish, and stops the workers.
+     */
+    public void stop() {
+        server.stop(1);
+        workers.shutdown();
+        manager.removeGroupListener(this);
+        manager.removeGroupListener(cache);
+        manager.removeGroupListener(searchIndex);
+    }
+
+    /**
+     * @return the port the server is listening on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void groupAdded(KPopGroup group) {
+        changes.incrementAndGet();
+    }
+
+    @Override
+    public void groupUpdated(String name, KPopGroup group) {
+        changes.incrementAndGet();
+    }
+
+    @Override
+    public void groupDeleted(String name) {
+        changes.incrementAndGet();
+    }
+
+    /**
+     * A request handler that may fail with a status code.
+     */
+    private interface Handler {
+        void handle(HttpExchange exchange, String path, Map<String, String> params) throws IOException;
+    }
+
+    /**
+     * Reports a client or lookup error with its HTTP status.
+     */
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Runs a handler and turns any failure into a JSON error reply.
+     */
+    private void handle(HttpExchange exchange, Handler handler) {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String context = exchange.getHttpContext().getPath();
+            String rest = path.length() > context.length() + 1 ? path.substring(context.length() + 1) : "";
+            handler.handle(exchange, rest, parseQuery(exchange.getRequestURI().getRawQuery()));
+        } catch (HttpError e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (UncheckedIOException | IOException e) {
+            // The client went away while the reply was being written; nothing left to report
+        } catch (RuntimeException e) {
+            System.out.println("Error handling request: " + e.getMessage());
+            sendError(exchange, 500, "Internal error.");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleGroups(HttpExchange exchange, String name, Map<String, String> params) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (name.isEmpty()) {
+            if (method.equals("GET")) {
+                listGroups(exchange, params);
+            } else if (method.equals("POST")) {
+                KPopGroup group = readGroup(exchange, null);
+                if (!manager.addGroup(group)) throw new HttpError(409, "Group could not be added. It may already exist.");
+                sendJson(exchange, 201, KPopJson.stringify(group), null);
+            } else {
+                throw new HttpError(405, "Use GET or POST on /groups.");
+            }
+            return;
+        }
+
+        switch (method) {
+            case "GET": {
+                String tag = currentTag();
+                if (notModified(exchange, tag)) return;
+                KPopGroup group = cache.getGroup(name);
+                if (group == null) throw new HttpError(404, "Group not found: " + name);
+                sendJson(exchange, 200, KPopJson.stringify(group), tag);
+                break;
+            }
+            case "PUT": {
+                KPopGroup group = readGroup(exchange, name);
+                if (!manager.updateGroup(name, group, group.version)) {
+                    if (group.version > 0 && manager.getGroup(name) != null) {
+                        throw new HttpError(409, "Group was changed by someone else; read it again: " + name);
+                    }
+                    throw new HttpError(404, "Group not found or update failed: " + name);
+                }
+                // The stored row, since its name and version may differ from the body's
+                KPopGroup stored = manager.getGroup(name);
+                if (stored == null) throw new HttpError(404, "Group not found: " + name);
+                sendJson(exchange, 200, KPopJson.stringify(stored), null);
+                break;
+            }
+            case "DELETE":
+                if (!manager.deleteGroup(name)) throw new HttpError(404, "Group not found or delete failed: " + name);
+                exchange.sendResponseHeaders(204, -1);
+                break;
+            default:
+                throw new HttpError(405, "Use GET, PUT or DELETE on /groups/{name}.");
+        }
+    }
+
+    /**
+     * Writes the matching groups as a JSON array. Without a limit every matching group is
+     * streamed to the client as it is read from the database.
+     */
+    private void listGroups(HttpExchange exchange, Map<String, String> params) throws IOException {
+        KPopGroupQuery query = new KPopGroupQuery()
+                .namePrefix(params.get("prefix"))
+                .agency(params.get("agency"))
+                .status(params.get("status"))
+                .debutBetween(params.get("debut_from"), params.get("debut_to"))
+                .popularityBetween(intParam(params, "min_score", null), intParam(params, "max_score", null))
+                .sortBy("popularity".equals(params.get("sort"))
+                        ? KPopDatabaseManager.SortOrder.POPULARITY : KPopDatabaseManager.SortOrder.NAME);
+        Integer limit = intParam(params, "limit", null);
+        int offset = intParam(params, "offset", 0);
+        if (limit != null && (limit < 0 || limit > MAX_PAGE_SIZE)) throw new HttpError(400, "limit must be between 0 and " + MAX_PAGE_SIZE + ".");
+
+        String tag = currentTag();
+        if (notModified(exchange, tag)) return;
+
+        if (limit != null || offset > 0) {
+            List<KPopGroup> page = manager.getGroupPage(query, null, offset, limit != null ? limit : MAX_PAGE_SIZE);
+            sendJson(exchange, 200, KPopJson.stringify(page), tag);
+            return;
+        }
+
+        startJson(exchange, 200, tag, 0);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 16 * 1024)) {
+            StringBuilder sb = new StringBuilder(256);
+            boolean[] first = {true};
+            out.write('[');
+            int count = manager.forEachGroup(query, group -> {
+                sb.setLength(0);
+                if (!first[0]) sb.append(',');
+                first[0] = false;
+                KPopJson.write(sb, group);
+                try {
+                    out.append(sb);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            // The status line is already sent, so leave the array unterminated to mark the reply as incomplete
+            if (count < 0) return;
+            out.write(']');
+        }
+    }
+
+    private void handleRank(HttpExchange exchange, String name, Map<String, String> params) throws IOException {
+        requireGet(exchange);
+        String tag = currentTag();
+        if (notModified(exchange, tag)) return;
+
+        if (name.isEmpty()) {
+            int k = intParam(params, "k", 10);
+            if (k < 0 || k > MAX_PAGE_SIZE) throw new HttpError(400, "k must be between 0 and " + MAX_PAGE_SIZE + ".");
+            sendJson(exchange, 200, KPopJson.stringify(cache.topK(k)), tag);
+            return;
+        }
+        int rank = cache.getRank(name);
+        if (rank < 0) throw new HttpError(404, "Group not found: " + name);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("name", name);
+        body.put("rank", rank);
+        sendJson(exchange, 200, KPopJson.stringify(body), tag);
+    }
+
+    private void handleSearch(HttpExchange exchange, String rest, Map<String, String> params) throws IOException {
+        requireGet(exchange);
+        String text = params.get("q");
+        if (text == null) throw new HttpError(400, "Missing parameter q.");
+        int limit = intParam(params, "limit", 20);
+        if (limit < 0 || limit > MAX_PAGE_SIZE) throw new HttpError(400, "limit must be between 0 and " + MAX_PAGE_SIZE + ".");
+        String tag = currentTag();
+        if (notModified(exchange, tag)) return;
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (KPopSearchIndex.Match match : searchIndex.search(text, limit)) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("group", match.group);
+            result.put("field", match.field.name().toLowerCase());
+            result.put("text", match.text);
+            result.put("score", Math.round(match.score * 1000) / 1000.0);
+            results.add(result);
+        }
+        sendJson(exchange, 200, KPopJson.stringify(results), tag);
+    }
+
+    private void handleMetrics(HttpExchange exchange, String rest, Map<String, String> params) throws IOException {
+        requireGet(exchange);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("enabled", manager.getMetrics().isEnabled());
+        body.put("summary", List.of(manager.getMetrics().getSummary()));
+        sendJson(exchange, 200, KPopJson.stringify(body), null);
+    }
+
+    /**
+     * Builds the ETag for the current state of the database. SQLite's data version only changes
+     * for commits made by other connections, so changes made through this process are counted separately.
+     */
+    private String currentTag() {
+        long now = System.currentTimeMillis();
+        if (now - lastVersionCheck >= VERSION_CHECK_INTERVAL_MS) {
+            lastVersionCheck = now;
+            dataVersion = manager.getDataVersion();
+        }
+        KPopScoreBuffer buffer = manager.getScoreBuffer();
+        long queued = buffer == null ? 0 : buffer.getQueuedCount();
+        return "\"" + dataVersion + "-" + changes.get() + "-" + queued + "\"";
+    }
+
+    /**
+     * Replies 304 if the client already has the current version.
+     *
+     * @return true if the reply was sent
+     */
+    private static boolean notModified(HttpExchange exchange, String tag) throws IOException {
+        String sent = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (sent == null || !(sent.equals(tag) || sent.equals("W/" + tag) || sent.equals("*"))) return false;
+        exchange.getResponseHeaders().set("ETag", tag);
+        exchange.sendResponseHeaders(304, -1);
+        return true;
+    }
+
+    /**
+     * Reads a group from the JSON request body.
+     *
+     * @param name name from the URL, which overrides any name in the body; null to take it from the body
+     */
+    private static KPopGroup readGroup(HttpExchange exchange, String name) throws IOException {
+        String body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        Map<String, Object> obj = KPopJson.parseObject(body);
+        if (name != null) obj.put("name", name);
+        KPopValidator.Result result = KPopValidator.validate(KPopGroupReader.fromJson(obj));
+        if (!result.isValid()) throw new HttpError(400, "Invalid group: " + result.describeErrors() + ".");
+        return result.getGroup();
+    }
+
+    private static void requireGet(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("GET")) throw new HttpError(405, "Only GET is supported here.");
+    }
+
+    private static Integer intParam(Map<String, String> params, String key, Integer fallback) {
+        String value = params.get(key);
+        if (value == null) return fallback;
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, key + " must be a number.");
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            if (!value.isEmpty()) params.put(key, value);
+        }
+        return params;
+    }
+
+    private static void startJson(HttpExchange exchange, int status, String tag, long length) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "application/json; charset=utf-8");
+        if (tag != null) {
+            headers.set("ETag", tag);
+            headers.set("Cache-Control", "no-cache");
+        }
+        exchange.sendResponseHeaders(status, length);
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json, String tag) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        startJson(exchange, status, tag, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        try {
+            sendJson(exchange, status, KPopJson.stringify(body), null);
+        } catch (IOException e) {
+            // Headers were already sent or the client is gone
+        }
+    }
+
+    /**
+     * Starts the server from the command line.
+     *
+     * @param args path to the SQLite database, then optionally the port and the number of worker threads
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java KPopHttpServer <database.db> [port] [threads]");
+            return;
+        }
+        // Small JSON replies otherwise wait on delayed ACKs and cap keep-alive clients at a few hundred
+        // requests per second. Only set here, where the whole process is this server.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        KPopDatabaseManager manager = new KPopDatabaseManager();
+        if (!manager.connect(args[0])) {
+            System.out.println("Failed to connect to the database.");
+            return;
+        }
+        try {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+            int threads = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_THREADS;
+            KPopHttpServer httpServer = new KPopHttpServer(manager, port, threads);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                httpServer.stop();
+                manager.close();
+            }));
+            httpServer.start();
+            System.out.println("Serving " + args[0] + " on http://localhost:" + httpServer.getPort() + "/");
+        } catch (NumberFormatException e) {
+            System.out.println("Error: port and threads must be numbers.");
+            manager.close();
+        } catch (IOException e) {
+            System.out.println("Error starting server: " + e.getMessage());
+            manager.close();
+        }
+    }
+}
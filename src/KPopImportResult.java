@@ -0,0 +1,55 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Summary of a bulk import run.
+ * Keeps track of how many groups were stored and which rows were rejected, and why.
+ */
+public class KPopImportResult {
+    private int imported;
+    private final List<String> failures = new ArrayList<>();
+
+    /**
+     * Records that a number of rows were stored successfully.
+     *
+     * @param count number of rows stored
+     */
+    void addImported(int count) {
+        imported += count;
+    }
+
+    /**
+     * Records a row that could not be stored.
+     *
+     * @param row 1-based position of the row in the input
+     * @param name name of the group on that row
+     * @param reason why the row was rejected
+     */
+    void addFailure(int row, String name, String reason) {
+        failures.add("Row " + row + " (" + name + "): " + reason);
+    }
+
+    /**
+     * @return number of groups that were stored
+     */
+    public int getImported() {
+        return imported;
+    }
+
+    /**
+     * @return a message for every row that was rejected
+     */
+    public List<String> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns a short summary of the import.
+     *
+     * @return string with the imported and failed counts
+     */
+    @Override
+    public String toString() {
+        return "Imported: " + imported + ", Failed: " + failures.size();
+    }
+}
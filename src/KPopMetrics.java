@@ -0,0 +1,255 @@
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Timing, row counts and error counts for every KPopDatabaseManager operation.
+ * Each operation gets a {@link KPopLatencyHistogram}; waiting for a pooled connection is
+ * recorded separately as connection.read and connection.write. Operations slower than a
+ * threshold are logged as they happen. The numbers can be read through JMX, printed on
+ * demand, or printed at a fixed interval.
+ *
+ * Timing is off by default. While it is off, {@link #begin()} is a single volatile read and
+ * every other recording call returns immediately, so the manager's hot paths pay almost nothing.
+ * It can be switched on with -Dkpopdms.metrics=true or at runtime through JMX.
+ * The slow-query threshold comes from -Dkpopdms.slowQueryMs (500 by default) and a periodic
+ * dump can be requested with -Dkpopdms.metrics.dumpSeconds.
+ */
+public class KPopMetrics implements KPopMetricsMBean {
+    /** Name recorded for time spent waiting for a read connection. */
+    public static final String READ_WAIT = "connection.read";
+    /** Name recorded for time spent waiting for the write connection. */
+    public static final String WRITE_WAIT = "connection.write";
+
+    /** Counters for one operation. */
+    private static final class OperationStats {
+        final KPopLatencyHistogram latency = new KPopLatencyHistogram();
+        final LongAdder rows = new LongAdder();
+        final LongAdder errors = new LongAdder();
+    }
+
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private final LongSupplier cacheHits;
+    private final LongSupplier cacheMisses;
+    private volatile boolean enabled = Boolean.getBoolean("kpopdms.metrics");
+    private volatile long slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("kpopdms.slowQueryMs", 500));
+    private ScheduledExecutorService dumper;
+    private ObjectName registeredName;
+
+    /**
+     * Creates an empty set of metrics.
+     *
+     * @param cacheHits reads the current number of statement cache hits
+     * @param cacheMisses reads the current number of statement cache misses
+     */
+    public KPopMetrics(LongSupplier cacheHits, LongSupplier cacheMisses) {
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+    }
+
+    /**
+     * Marks the start of an operation.
+     *
+     * @return the start time to pass to {@link #end(String, long)}, or 0 if timing is off
+     */
+    public long begin() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the duration of an operation and logs it if it was slow.
+     *
+     * @param operation name of the operation
+     * @param start value returned by {@link #begin()}
+     */
+    public void end(String operation, long start) {
+        if (start == 0) return;
+        long elapsed = System.nanoTime() - start;
+        stats(operation).latency.record(elapsed);
+        long threshold = slowQueryNanos;
+        if (threshold > 0 && elapsed >= threshold) {
+            System.out.println("Slow operation: " + operation + " took " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms");
+        }
+    }
+
+    /**
+     * Records how long a thread waited for a pooled connection.
+     *
+     * @param write true for the write connection, false for a read connection
+     * @param start value returned by {@link #begin()} before asking for the connection
+     */
+    public void connectionWait(boolean write, long start) {
+        if (start == 0) return;
+        stats(write ? WRITE_WAIT : READ_WAIT).latency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Adds to the number of rows an operation read or wrote.
+     *
+     * @param operation name of the operation
+     * @param count number of rows
+     */
+    public void rows(String operation, long count) {
+        if (!enabled) return;
+        stats(operation).rows.add(count);
+    }
+
+    /**
+     * Counts a failed operation. Errors are counted even while timing is off, since they are rare.
+     *
+     * @param operation name of the operation
+     */
+    public void error(String operation) {
+        stats(operation).errors.increment();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long getSlowQueryThresholdMs() {
+        return TimeUnit.NANOSECONDS.toMillis(slowQueryNanos);
+    }
+
+    @Override
+    public void setSlowQueryThresholdMs(long thresholdMs) {
+        slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, thresholdMs));
+    }
+
+    @Override
+    public long getStatementCacheHits() {
+        return cacheHits.getAsLong();
+    }
+
+    @Override
+    public long getStatementCacheMisses() {
+        return cacheMisses.getAsLong();
+    }
+
+    @Override
+    public long getErrorCount() {
+        long total = 0;
+        for (OperationStats stats : operations.values()) total += stats.errors.sum();
+        return total;
+    }
+
+    @Override
+    public String[] getOperationNames() {
+        return new TreeMap<>(operations).keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public String[] getSummary() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, OperationStats> entry : new TreeMap<>(operations).entrySet()) {
+            OperationStats stats = entry.getValue();
+            KPopLatencyHistogram latency = stats.latency;
+            lines.add(String.format("%-22s count=%d rows=%d errors=%d mean=%.3fms p50=%.3fms p99=%.3fms p999=%.3fms max=%.3fms",
+                    entry.getKey(), latency.getCount(), stats.rows.sum(), stats.errors.sum(),
+                    latency.getMean() / 1e6, latency.getPercentile(50) / 1e6, latency.getPercentile(99) / 1e6,
+                    latency.getPercentile(99.9) / 1e6, latency.getMax() / 1e6));
+        }
+        lines.add("statement cache hits=" + getStatementCacheHits() + " misses=" + getStatementCacheMisses());
+        return lines.toArray(new String[0]);
+    }
+
+    @Override
+    public double getPercentileMs(String operation, double percentile) {
+        OperationStats stats = operations.get(operation);
+        return stats == null ? 0 : stats.latency.getPercentile(percentile) / 1e6;
+    }
+
+    @Override
+    public void reset() {
+        operations.clear();
+    }
+
+    @Override
+    public void dump() {
+        System.out.println("--- KPopDMS metrics ---");
+        for (String line : getSummary()) System.out.println(line);
+    }
+
+    /**
+     * Prints the summary at a fixed interval on a background thread, replacing any earlier schedule.
+     *
+     * @param intervalSeconds seconds between two dumps, 0 or less to stop dumping
+     */
+    public synchronized void startPeriodicDump(long intervalSeconds) {
+        stopPeriodicDump();
+        if (intervalSeconds <= 0) return;
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "kpop-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(this::dump, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the periodic dump, if one is running.
+     */
+    public synchronized void stopPeriodicDump() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    /**
+     * Makes these metrics visible through JMX and starts the periodic dump if one was requested
+     * with -Dkpopdms.metrics.dumpSeconds. Any earlier registration is removed first.
+     *
+     * @param database path of the database, used to tell several managers apart
+     */
+    public synchronized void register(String database) {
+        unregister();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("kpopdms:type=Metrics,database=" + ObjectName.quote(database)
+                    + ",instance=" + Integer.toHexString(System.identityHashCode(this)));
+            server.registerMBean(this, name);
+            registeredName = name;
+        } catch (JMException e) {
+            System.out.println("Error registering metrics: " + e.getMessage());
+        }
+        startPeriodicDump(Long.getLong("kpopdms.metrics.dumpSeconds", 0));
+    }
+
+    /**
+     * Removes these metrics from JMX and stops the periodic dump.
+     */
+    public synchronized void unregister() {
+        stopPeriodicDump();
+        if (registeredName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (JMException e) {
+            System.out.println("Error unregistering metrics: " + e.getMessage());
+        }
+        registeredName = null;
+    }
+
+    private OperationStats stats(String operation) {
+        OperationStats stats = operations.get(operation);
+        return stats != null ? stats : operations.computeIfAbsent(operation, k -> new OperationStats());
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Management interface of {@link KPopMetrics}, shown in JMX tools such as JConsole
+ * under the kpopdms domain.
+ */
+public interface KPopMetricsMBean {
+
+    /**
+     * @return true if operations are being timed
+     */
+    boolean isEnabled();
+
+    /**
+     * Switches timing on or off while the program runs.
+     *
+     * @param enabled true to time operations
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return operations taking at least this long are logged, 0 means never
+     */
+    long getSlowQueryThresholdMs();
+
+    /**
+     * @param thresholdMs operations taking at least this long are logged, 0 to turn the log off
+     */
+    void setSlowQueryThresholdMs(long thresholdMs);
+
+    /**
+     * @return how many times a cached prepared statement was reused
+     */
+    long getStatementCacheHits();
+
+    /**
+     * @return how many times a statement had to be prepared
+     */
+    long getStatementCacheMisses();
+
+    /**
+     * @return number of operations that failed with an error
+     */
+    long getErrorCount();
+
+    /**
+     * @return names of every operation recorded so far
+     */
+    String[] getOperationNames();
+
+    /**
+     * @return one line per operation with its count, rows, errors and latency percentiles
+     */
+    String[] getSummary();
+
+    /**
+     * Returns a latency percentile of one operation.
+     *
+     * @param operation operation name
+     * @param percentile between 0 and 100
+     * @return the latency in milliseconds, or 0 if the operation was never recorded
+     */
+    double getPercentileMs(String operation, double percentile);
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    void reset();
+
+    /**
+     * Prints the summary to standard output.
+     */
+    void dump();
+}
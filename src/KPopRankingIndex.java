@@ -0,0 +1,211 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-memory popularity ranking that stays sorted as scores change.
+ * Groups are kept in a treap (a randomly balanced binary search tree) where every node
+ * also stores the size of its subtree. That lets a score change, a rank lookup, and
+ * finding the k-th group all run in O(log n), so the ranking never has to be re-sorted.
+ * Groups are ordered by popularity from highest to lowest, ties broken by name.
+ */
+public class KPopRankingIndex {
+    /** Highest popularity first, ties broken by name. */
+    public static final Comparator<KPopGroup> ORDER =
+            Comparator.comparingInt((KPopGroup g) -> g.popularityScore).reversed().thenComparing(g -> g.name);
+
+    private static final class Node {
+        final KPopGroup group;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(KPopGroup group) {
+            this.group = group;
+        }
+    }
+
+    private final Map<String, KPopGroup> byName = new HashMap<>();
+    private Node root;
+
+    /**
+     * Adds a group, or moves it to its new place if a group with the same name is already ranked.
+     *
+     * @param group the group to rank
+     */
+    public synchronized void put(KPopGroup group) {
+        KPopGroup previous = byName.put(group.name, group);
+        if (previous != null) root = remove(root, previous);
+        root = insert(root, new Node(group));
+    }
+
+    /**
+     * Removes a group from the ranking.
+     *
+     * @param name name of the group
+     * @return true if the group was ranked
+     */
+    public synchronized boolean remove(String name) {
+        KPopGroup previous = byName.remove(name);
+        if (previous == null) return false;
+        root = remove(root, previous);
+        return true;
+    }
+
+    /**
+     * @return number of ranked groups
+     */
+    public synchronized int size() {
+        return size(root);
+    }
+
+    /**
+     * Returns the 1-based rank of a group, where 1 is the most popular.
+     *
+     * @param name name of the group
+     * @return the group's rank, or -1 if it is not ranked
+     */
+    public synchronized int rankOf(String name) {
+        KPopGroup group = byName.get(name);
+        if (group == null) return -1;
+
+        int before = 0;
+        Node node = root;
+        while (node != null) {
+            int c = ORDER.compare(group, node.group);
+            if (c <= 0) {
+                if (c == 0) return before + size(node.left) + 1;
+                node = node.left;
+            } else {
+                before += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the k most popular groups.
+     *
+     * @param k number of groups wanted
+     * @return up to k groups, most popular first
+     */
+    public List<KPopGroup> topK(int k) {
+        return page(0, k);
+    }
+
+    /**
+     * Returns a range of the ranking without walking the groups before it.
+     *
+     * @param offset 0-based position of the first group to return
+     * @param limit maximum number of groups to return
+     * @return the groups in that range, most popular first
+     */
+    public synchronized List<KPopGroup> page(int offset, int limit) {
+        List<KPopGroup> result = new ArrayList<>(Math.max(0, Math.min(limit, size(root) - offset)));
+        Deque<Node> stack = new ArrayDeque<>();
+        Node node = root;
+        int skip = offset;
+
+        // Descend to the node at position offset, remembering the ancestors still to visit
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (skip < leftSize) {
+                stack.push(node);
+                node = node.left;
+            } else if (skip == leftSize) {
+                stack.push(node);
+                break;
+            } else {
+                skip -= leftSize + 1;
+                node = node.right;
+            }
+        }
+
+        // Continue as a normal in-order walk
+        while (!stack.isEmpty() && result.size() < limit) {
+            Node next = stack.pop();
+            result.add(next.group);
+            for (Node n = next.right; n != null; n = n.left) stack.push(n);
+        }
+        return result;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) return added;
+        if (added.priority > node.priority) {
+            Node[] parts = split(node, added.group);
+            added.left = parts[0];
+            added.right = parts[1];
+            update(added);
+            return added;
+        }
+        if (ORDER.compare(added.group, node.group) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node remove(Node node, KPopGroup group) {
+        if (node == null) return null;
+        int c = ORDER.compare(group, node.group);
+        if (c == 0) return merge(node.left, node.right);
+        if (c < 0) {
+            node.left = remove(node.left, group);
+        } else {
+            node.right = remove(node.right, group);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Splits a tree into the nodes ordered before the key and the rest.
+     */
+    private static Node[] split(Node node, KPopGroup key) {
+        if (node == null) return new Node[]{null, null};
+        if (ORDER.compare(node.group, key) < 0) {
+            Node[] parts = split(node.right, key);
+            node.right = parts[0];
+            update(node);
+            return new Node[]{node, parts[1]};
+        }
+        Node[] parts = split(node.left, key);
+        node.left = parts[1];
+        update(node);
+        return new Node[]{parts[0], node};
+    }
+
+    /**
+     * Joins two trees where every node of the first is ordered before every node of the second.
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+}
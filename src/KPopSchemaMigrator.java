@@ -0,0 +1,159 @@
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Brings a database up to the schema this program expects.
+ * The schema version is stored in SQLite's PRAGMA user_version. Each migration that is
+ * newer than the stored version runs in its own transaction together with the version
+ * bump, so a failed migration leaves the database at the previous version.
+ */
+public class KPopSchemaMigrator {
+
+    /**
+     * One step of the schema history.
+     */
+    interface Migration {
+        void apply(Connection connection) throws SQLException;
+    }
+
+    private final List<Migration> migrations = new ArrayList<>();
+
+    /**
+     * Creates a migrator with every known schema version.
+     */
+    public KPopSchemaMigrator() {
+        // Version 1: the groups table itself
+        migrations.add(connection -> execute(connection,
+                "CREATE TABLE IF NOT EXISTS groups ("
+                        + "name TEXT PRIMARY KEY, "
+                        + "debut_date TEXT NOT NULL, "
+                        + "members TEXT NOT NULL, "
+                        + "agency TEXT, "
+                        + "latest_album TEXT, "
+                        + "status TEXT CHECK(status IN ('active', 'disbanded', 'hiatus')), "
+                        + "popularity_score INTEGER)"));
+
+        // Version 2: a unique index on name, for older tables created without a primary key
+        migrations.add(connection -> {
+            if (!hasUniqueIndexOnName(connection)) {
+                execute(connection, "CREATE UNIQUE INDEX IF NOT EXISTS idx_groups_name ON groups (name)");
+            }
+        });
+
+        // Version 3: indexes for ranking and filtering
+        migrations.add(connection -> {
+            execute(connection, "CREATE INDEX IF NOT EXISTS idx_groups_popularity ON groups (popularity_score DESC, name)");
+            execute(connection, "CREATE INDEX IF NOT EXISTS idx_groups_agency ON groups (agency)");
+            execute(connection, "CREATE INDEX IF NOT EXISTS idx_groups_status ON groups (status)");
+        });
+
+        // Version 4: the change log, written in the same transaction as every change to groups
+        migrations.add(connection -> execute(connection,
+                "CREATE TABLE IF NOT EXISTS change_log ("
+                        + "seq INTEGER PRIMARY KEY AUTOINCREMENT, "
+                        + "op TEXT NOT NULL CHECK(op IN ('insert', 'update', 'delete')), "
+                        + "group_name TEXT NOT NULL, "
+                        + "before_image TEXT, "
+                        + "after_image TEXT, "
+                        + "changed_at INTEGER NOT NULL)"));
+
+        // Version 5: popularity score history, one compressed row per group and block of days
+        migrations.add(connection -> {
+            execute(connection, "CREATE TABLE IF NOT EXISTS score_chunks ("
+                    + "group_name TEXT NOT NULL, "
+                    + "chunk_start INTEGER NOT NULL, "
+                    + "first_day INTEGER NOT NULL, "
+                    + "last_day INTEGER NOT NULL, "
+                    + "count INTEGER NOT NULL, "
+                    + "first_score INTEGER NOT NULL, "
+                    + "last_score INTEGER NOT NULL, "
+                    + "min_score INTEGER NOT NULL, "
+                    + "max_score INTEGER NOT NULL, "
+                    + "sum_score INTEGER NOT NULL, "
+                    + "data BLOB NOT NULL, "
+                    + "PRIMARY KEY (group_name, chunk_start)) WITHOUT ROWID");
+            execute(connection, "CREATE INDEX IF NOT EXISTS idx_score_chunks_start ON score_chunks (chunk_start)");
+        });
+
+        // Version 6: a row version for optimistic concurrency, raised by every change to a group
+        migrations.add(connection -> execute(connection,
+                "ALTER TABLE groups ADD COLUMN version INTEGER NOT NULL DEFAULT 1"));
+
+        // Version 7: drop score history left behind by groups deleted before deletes removed it
+        migrations.add(connection -> execute(connection,
+                "DELETE FROM score_chunks WHERE group_name NOT IN (SELECT name FROM groups)"));
+    }
+
+    /**
+     * @return the schema version this program expects
+     */
+    public int getLatestVersion() {
+        return migrations.size();
+    }
+
+    /**
+     * Runs every migration newer than the database's current version.
+     *
+     * @param connection a connection in auto-commit mode with write access
+     * @return the schema version before migrating
+     * @throws SQLException if a migration fails
+     */
+    public int migrate(Connection connection) throws SQLException {
+        int current = getVersion(connection);
+        for (int version = current + 1; version <= migrations.size(); version++) {
+            connection.setAutoCommit(false);
+            try {
+                migrations.get(version - 1).apply(connection);
+                execute(connection, "PRAGMA user_version = " + version);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw new SQLException("Migration to schema version " + version + " failed: " + e.getMessage(), e);
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Reads the schema version stored in the database.
+     *
+     * @param connection any connection to the database
+     * @return the stored version, 0 for a database that was never migrated
+     * @throws SQLException if the version cannot be read
+     */
+    public static int getVersion(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static boolean hasUniqueIndexOnName(Connection connection) throws SQLException {
+        List<String> uniqueIndexes = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA index_list('groups')")) {
+            while (rs.next()) {
+                if (rs.getInt("unique") == 1) uniqueIndexes.add(rs.getString("name"));
+            }
+        }
+        for (String index : uniqueIndexes) {
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("PRAGMA index_info('" + index.replace("'", "''") + "')")) {
+                if (rs.next() && "name".equals(rs.getString("name")) && !rs.next()) return true;
+            }
+        }
+        return false;
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for popularity score updates.
+ *
+ * Updates are kept in memory and written later in one transaction, so thousands of updates
+ * per second cost a few commits instead of one each. Repeated updates of the same group
+ * before a flush are coalesced and only the latest score is written. A background thread
+ * flushes when {@code flushSize} groups are waiting or when the oldest waiting update is
+ * {@code flushIntervalMillis} old. When {@code capacity} groups are waiting, callers of
+ * {@link #put(String, int)} block until a flush makes room, which slows producers down to
+ * the speed of the database instead of letting memory grow. Closing the buffer writes
+ * whatever is still waiting.
+ *
+ * If a flush fails, its scores are put back (unless a newer score arrived meanwhile) and
+ * retried after the flush interval. Thread-safe. The buffer's lock is fair, so the flush
+ * thread gets its turn even while many producers are calling put in a tight loop.
+ */
+public class KPopScoreBuffer implements AutoCloseable {
+    /** Number of waiting groups that triggers a flush by default. */
+    public static final int DEFAULT_FLUSH_SIZE = KPopDatabaseManager.DEFAULT_BATCH_SIZE;
+    /** Number of waiting groups at which {@link #put(String, int)} blocks by default. */
+    public static final int DEFAULT_CAPACITY = 10_000;
+    /** Longest time an update waits before it is flushed, by default. */
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 200;
+
+    /**
+     * Writes a batch of scores to the database in one transaction.
+     */
+    interface ScoreWriter {
+        int write(Map<String, Integer> scores) throws SQLException;
+    }
+
+    private final ScoreWriter writer;
+    private final int flushSize;
+    private final int capacity;
+    private final long flushIntervalMillis;
+    private final Object flushLock = new Object();
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition flushDue = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Thread flusher;
+
+    // Guarded by lock
+    private LinkedHashMap<String, Integer> pending = new LinkedHashMap<>();
+    private Map<String, Integer> inFlight = Collections.emptyMap();
+    private long oldestPendingNanos;
+    private long retryAtNanos = System.nanoTime();
+    private boolean flushRequested;
+    private boolean closed;
+    private long coalesced;
+    private long written;
+
+    /** Number of scores waiting or being written, readable without the lock. */
+    private volatile int pendingCount;
+    /** Number of scores ever queued, readable without the lock. */
+    private volatile long queuedCount;
+
+    /**
+     * Creates a buffer and starts its flush thread.
+     *
+     * @param writer writes a batch of scores in one transaction
+     * @param flushSize number of waiting groups that triggers a flush
+     * @param capacity number of waiting groups at which callers block; at least flushSize
+     * @param flushIntervalMillis longest time an update waits before it is flushed
+     */
+    KPopScoreBuffer(ScoreWriter writer, int flushSize, int capacity, long flushIntervalMillis) {
+        if (flushSize < 1 || capacity < flushSize || flushIntervalMillis < 1) {
+            throw new IllegalArgumentException("Need 1 <= flushSize <= capacity and a positive flush interval.");
+        }
+        this.writer = writer;
+        this.flushSize = flushSize;
+        this.capacity = capacity;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.flusher = new Thread(this::runFlusher, "kpop-score-buffer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Queues a new score for a group, replacing any score still waiting for the same group.
+     * Blocks while the buffer is full.
+     *
+     * @param name name of the group
+     * @param score the new popularity score
+     * @return true if the score was queued, false if the buffer is closed or the wait was interrupted
+     */
+    public boolean put(String name, int score) {
+        lock.lock();
+        try {
+            while (!closed && pending.size() >= capacity && !pending.containsKey(name)) {
+                flushRequested = true;
+                flushDue.signal();
+                notFull.await();
+            }
+            if (closed) return false;
+            if (pending.isEmpty()) {
+                oldestPendingNanos = System.nanoTime();
+                flushDue.signal();
+            }
+            if (pending.put(name, score) != null) coalesced++;
+            queuedCount++;
+            pendingCount = pending.size() + inFlight.size();
+            if (pending.size() == flushSize) flushDue.signal();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the score waiting to be written for a group, so reads can show it before it is flushed.
+     *
+     * @param name name of the group
+     * @return the newest unwritten score, or null if none is waiting
+     */
+    public Integer getPending(String name) {
+        if (pendingCount == 0) return null;
+        lock.lock();
+        try {
+            Integer score = pending.get(name);
+            return score != null ? score : inFlight.get(name);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of groups whose scores are waiting or being written
+     */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * Returns the number of scores queued since the buffer was created. It changes whenever
+     * a read could show a different score, so it can be part of a cache tag.
+     *
+     * @return number of scores ever queued
+     */
+    public long getQueuedCount() {
+        return queuedCount;
+    }
+
+    /**
+     * @return number of updates that replaced a score still waiting for the same group
+     */
+    public long getCoalescedCount() {
+        lock.lock();
+        try {
+            return coalesced;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of scores written to the database so far
+     */
+    public long getWrittenCount() {
+        lock.lock();
+        try {
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes every score queued before this call, waiting for a flush already in progress.
+     * Must not be called while holding the write connection.
+     *
+     * @return true if the scores were written, false if the write failed and they were kept for a retry
+     */
+    public boolean flush() {
+        synchronized (flushLock) {
+            Map<String, Integer> batch;
+            lock.lock();
+            try {
+                if (pending.isEmpty()) return true;
+                batch = pending;
+                inFlight = batch;
+                pending = new LinkedHashMap<>();
+                flushRequested = false;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                writer.write(batch);
+                lock.lock();
+                try {
+                    written += batch.size();
+                    inFlight = Collections.emptyMap();
+                    pendingCount = pending.size();
+                } finally {
+                    lock.unlock();
+                }
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                System.out.println("Error writing buffered scores: " + e.getMessage());
+                lock.lock();
+                try {
+                    // Back off so a database that keeps failing is not retried in a tight loop
+                    retryAtNanos = System.nanoTime() + flushIntervalMillis * 1_000_000;
+                    if (pending.isEmpty()) oldestPendingNanos = System.nanoTime();
+                    for (Map.Entry<String, Integer> entry : batch.entrySet()) pending.putIfAbsent(entry.getKey(), entry.getValue());
+                    inFlight = Collections.emptyMap();
+                    pendingCount = pending.size();
+                } finally {
+                    lock.unlock();
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Stops accepting updates, writes the ones still waiting and stops the flush thread.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            flushDue.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!flush()) System.out.println(getPendingCount() + " buffered scores could not be written.");
+    }
+
+    private void runFlusher() {
+        while (true) {
+            lock.lock();
+            try {
+                long wait;
+                while (!closed && (wait = millisUntilDue()) > 0) {
+                    if (wait == Long.MAX_VALUE) {
+                        flushDue.await();
+                    } else {
+                        flushDue.await(wait, TimeUnit.MILLISECONDS);
+                    }
+                }
+                if (closed) return;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            flush();
+        }
+    }
+
+    /** Returns 0 if a flush is due, otherwise how long to wait; Long.MAX_VALUE if nothing is waiting. */
+    private long millisUntilDue() {
+        if (pending.isEmpty()) return Long.MAX_VALUE;
+        long now = System.nanoTime();
+        if (now - retryAtNanos < 0) return Math.max(1, (retryAtNanos - now) / 1_000_000);
+        if (flushRequested || pending.size() >= flushSize) return 0;
+        long age = (now - oldestPendingNanos) / 1_000_000;
+        return Math.max(0, flushIntervalMillis - age);
+    }
+}
@@ -0,0 +1,554 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Append-only history of popularity scores, at most one score per group and day, for trends
+ * such as moving averages and the biggest risers of a week.
+ *
+ * Scores are stored in the score_chunks table, one row per group and block of
+ * {@value #CHUNK_DAYS} days. Inside a row each score is written as the gap in days and the
+ * change in score since the previous one, both as variable-length integers, so a typical day
+ * takes two bytes and appending a day only adds bytes to the end of the row. Every row also
+ * keeps the count, sum, minimum, maximum, first and last score of its block, so averages over
+ * long ranges read only the rows at the two ends of the range, and the score on a given day
+ * is found by decoding a single row.
+ */
+public class KPopScoreHistory {
+    /** Number of days covered by one stored row. */
+    public static final int CHUNK_DAYS = 64;
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String CHUNK_COLUMNS = "chunk_start, first_day, last_day, count, first_score, last_score, min_score, max_score, sum_score, data";
+    private static final String LATEST_CHUNK_SQL = "SELECT " + CHUNK_COLUMNS + " FROM score_chunks WHERE group_name = ? ORDER BY chunk_start DESC LIMIT 1";
+    private static final String SCORE_ON_SQL = "SELECT " + CHUNK_COLUMNS + " FROM score_chunks WHERE group_name = ? AND chunk_start <= ? ORDER BY chunk_start DESC LIMIT 2";
+    private static final String RANGE_SQL = "SELECT " + CHUNK_COLUMNS + " FROM score_chunks WHERE group_name = ? AND chunk_start BETWEEN ? AND ? ORDER BY chunk_start";
+    private static final String UPSERT_SQL = "INSERT OR REPLACE INTO score_chunks (group_name, " + CHUNK_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final KPopDatabaseManager manager;
+
+    /**
+     * Creates a history stored in the manager's database.
+     *
+     * @param manager connected database manager
+     */
+    public KPopScoreHistory(KPopDatabaseManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * How much one group's score changed between two days.
+     */
+    public static final class Move {
+        private final String name;
+        private final int fromScore;
+        private final int toScore;
+
+        Move(String name, int fromScore, int toScore) {
+            this.name = name;
+            this.fromScore = fromScore;
+            this.toScore = toScore;
+        }
+
+        /**
+         * @return name of the group
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return score on the first day
+         */
+        public int getFromScore() {
+            return fromScore;
+        }
+
+        /**
+         * @return score on the second day
+         */
+        public int getToScore() {
+            return toScore;
+        }
+
+        /**
+         * @return the second score minus the first
+         */
+        public int getChange() {
+            return toScore - fromScore;
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + fromScore + " -> " + toScore;
+        }
+    }
+
+    /**
+     * One stored row: a block of days of one group with its summary.
+     */
+    private static final class Chunk {
+        int start;
+        int firstDay;
+        int lastDay;
+        int count;
+        int firstScore;
+        int lastScore;
+        int minScore;
+        int maxScore;
+        long sumScore;
+        byte[] data;
+
+        static Chunk read(ResultSet rs) throws SQLException {
+            Chunk chunk = new Chunk();
+            chunk.start = rs.getInt(1);
+            chunk.firstDay = rs.getInt(2);
+            chunk.lastDay = rs.getInt(3);
+            chunk.count = rs.getInt(4);
+            chunk.firstScore = rs.getInt(5);
+            chunk.lastScore = rs.getInt(6);
+            chunk.minScore = rs.getInt(7);
+            chunk.maxScore = rs.getInt(8);
+            chunk.sumScore = rs.getLong(9);
+            chunk.data = rs.getBytes(10);
+            return chunk;
+        }
+
+        /**
+         * Returns the score on a day, which must be on or after the first day of this chunk.
+         */
+        int scoreOn(int day) {
+            if (day >= lastDay) return lastScore;
+            int[] days = new int[count];
+            int[] scores = new int[count];
+            decode(this, days, scores);
+            int i = Arrays.binarySearch(days, day);
+            return scores[i >= 0 ? i : -i - 2];
+        }
+    }
+
+    /**
+     * Appends one day of scores. Groups that already have a score on this day or a later one are skipped,
+     * since the history only grows forward in time.
+     *
+     * @param day the day the scores belong to
+     * @param scores score of each group on that day
+     * @return number of scores stored, or -1 if an error occurred
+     */
+    public int record(LocalDate day, Map<String, Integer> scores) {
+        int epochDay = Math.toIntExact(day.toEpochDay());
+        try {
+            return manager.withWriter("recordScores", connection -> KPopDatabaseManager.inTransaction(connection, () -> {
+                try (Appender appender = new Appender(manager, connection, epochDay)) {
+                    for (Map.Entry<String, Integer> entry : scores.entrySet()) appender.append(entry.getKey(), entry.getValue());
+                    return appender.finish();
+                }
+            }));
+        } catch (SQLException e) {
+            System.out.println("Error recording scores: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Appends the current popularity score of every group as the score of the given day.
+     * Meant to be run once a day, for example from a scheduled job.
+     *
+     * @param day the day the scores belong to
+     * @return number of scores stored, or -1 if an error occurred
+     */
+    public int recordCurrentScores(LocalDate day) {
+        int epochDay = Math.toIntExact(day.toEpochDay());
+        manager.flushScores();
+        try {
+            return manager.withWriter("recordScores", connection -> KPopDatabaseManager.inTransaction(connection, () -> {
+                PreparedStatement stmt = manager.prepare(connection, "SELECT name, popularity_score FROM groups");
+                try (Appender appender = new Appender(manager, connection, epochDay);
+                     ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) appender.append(rs.getString(1), rs.getInt(2));
+                    return appender.finish();
+                }
+            }));
+        } catch (SQLException e) {
+            System.out.println("Error recording scores: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Adds scores of one day to the latest chunk of each group, writing the changed rows in batches.
+     * Its statements come from the manager's statement cache and stay open when it is closed.
+     */
+    private static final class Appender implements AutoCloseable {
+        private final PreparedStatement latest;
+        private final PreparedStatement upsert;
+        private final int day;
+        private final int chunkStart;
+        private int pending;
+        private int stored;
+
+        Appender(KPopDatabaseManager manager, Connection connection, int day) throws SQLException {
+            this.latest = manager.prepare(connection, LATEST_CHUNK_SQL);
+            this.upsert = manager.prepare(connection, UPSERT_SQL);
+            this.day = day;
+            this.chunkStart = chunkStart(day);
+        }
+
+        void append(String name, int score) throws SQLException {
+            latest.setString(1, name);
+            Chunk chunk;
+            try (ResultSet rs = latest.executeQuery()) {
+                chunk = rs.next() ? Chunk.read(rs) : null;
+            }
+            if (chunk != null && chunk.lastDay >= day) return;
+
+            if (chunk == null || chunk.start != chunkStart) {
+                chunk = new Chunk();
+                chunk.start = chunkStart;
+                chunk.firstDay = day;
+                chunk.firstScore = score;
+                chunk.minScore = score;
+                chunk.maxScore = score;
+                chunk.data = encodeEntry(day - chunkStart, score);
+            } else {
+                byte[] entry = encodeEntry(day - chunk.lastDay, score - chunk.lastScore);
+                byte[] data = Arrays.copyOf(chunk.data, chunk.data.length + entry.length);
+                System.arraycopy(entry, 0, data, chunk.data.length, entry.length);
+                chunk.data = data;
+                chunk.minScore = Math.min(chunk.minScore, score);
+                chunk.maxScore = Math.max(chunk.maxScore, score);
+            }
+            chunk.lastDay = day;
+            chunk.lastScore = score;
+            chunk.count++;
+            chunk.sumScore += score;
+
+            upsert.setString(1, name);
+            upsert.setInt(2, chunk.start);
+            upsert.setInt(3, chunk.firstDay);
+            upsert.setInt(4, chunk.lastDay);
+            upsert.setInt(5, chunk.count);
+            upsert.setInt(6, chunk.firstScore);
+            upsert.setInt(7, chunk.lastScore);
+            upsert.setInt(8, chunk.minScore);
+            upsert.setInt(9, chunk.maxScore);
+            upsert.setLong(10, chunk.sumScore);
+            upsert.setBytes(11, chunk.data);
+            upsert.addBatch();
+            stored++;
+            if (++pending == BATCH_SIZE) {
+                upsert.executeBatch();
+                pending = 0;
+            }
+        }
+
+        int finish() throws SQLException {
+            if (pending > 0) upsert.executeBatch();
+            pending = 0;
+            return stored;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            // Drop rows left unwritten by a failure, so the next use of the cached statement does not write them
+            upsert.clearBatch();
+        }
+    }
+
+    /**
+     * Returns every recorded score of a group between two days.
+     *
+     * @param name name of the group
+     * @param from first day, inclusive
+     * @param to last day, inclusive
+     * @return the scores by day, empty if there are none or an error occurred
+     */
+    public SortedMap<LocalDate, Integer> getHistory(String name, LocalDate from, LocalDate to) {
+        SortedMap<LocalDate, Integer> history = new TreeMap<>();
+        int fromDay = Math.toIntExact(from.toEpochDay());
+        int toDay = Math.toIntExact(to.toEpochDay());
+        try {
+            manager.withReader("scoreHistory", connection -> {
+                for (Chunk chunk : readRange(connection, name, fromDay, toDay)) {
+                    int[] days = new int[chunk.count];
+                    int[] scores = new int[chunk.count];
+                    decode(chunk, days, scores);
+                    for (int i = 0; i < chunk.count; i++) {
+                        if (days[i] >= fromDay && days[i] <= toDay) history.put(LocalDate.ofEpochDay(days[i]), scores[i]);
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            System.out.println("Error reading score history: " + e.getMessage());
+        }
+        return history;
+    }
+
+    /**
+     * Returns a group's score on a day: the score recorded that day, or else the latest one before it.
+     *
+     * @param name name of the group
+     * @param day the day
+     * @return the score, or null if nothing was recorded on or before that day or an error occurred
+     */
+    public Integer getScoreOn(String name, LocalDate day) {
+        int epochDay = Math.toIntExact(day.toEpochDay());
+        try {
+            return manager.withReader("scoreOn", connection -> {
+                return scoreOn(manager.prepare(connection, SCORE_ON_SQL), name, epochDay);
+            });
+        } catch (SQLException e) {
+            System.out.println("Error reading score history: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns how much a group's score changed between two days.
+     *
+     * @param name name of the group
+     * @param from the earlier day
+     * @param to the later day
+     * @return the score on the later day minus the score on the earlier day, or null if either is unknown
+     */
+    public Integer getScoreChange(String name, LocalDate from, LocalDate to) {
+        Integer before = getScoreOn(name, from);
+        Integer after = before == null ? null : getScoreOn(name, to);
+        return after == null ? null : after - before;
+    }
+
+    /**
+     * Returns the average of a group's recorded scores between two days.
+     * Blocks that lie entirely inside the range are summed from their stored totals without being decoded.
+     *
+     * @param name name of the group
+     * @param from first day, inclusive
+     * @param to last day, inclusive
+     * @return the average, or NaN if nothing was recorded in the range or an error occurred
+     */
+    public double getAverage(String name, LocalDate from, LocalDate to) {
+        int fromDay = Math.toIntExact(from.toEpochDay());
+        int toDay = Math.toIntExact(to.toEpochDay());
+        try {
+            return manager.withReader("scoreAverage", connection -> {
+                long sum = 0;
+                long count = 0;
+                for (Chunk chunk : readRange(connection, name, fromDay, toDay)) {
+                    if (chunk.firstDay >= fromDay && chunk.lastDay <= toDay) {
+                        sum += chunk.sumScore;
+                        count += chunk.count;
+                        continue;
+                    }
+                    int[] days = new int[chunk.count];
+                    int[] scores = new int[chunk.count];
+                    decode(chunk, days, scores);
+                    for (int i = 0; i < chunk.count; i++) {
+                        if (days[i] >= fromDay && days[i] <= toDay) {
+                            sum += scores[i];
+                            count++;
+                        }
+                    }
+                }
+                return count == 0 ? Double.NaN : (double) sum / count;
+            });
+        } catch (SQLException e) {
+            System.out.println("Error reading score history: " + e.getMessage());
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Returns a moving average of a group's recorded scores for every day in a range.
+     *
+     * @param name name of the group
+     * @param from first day of the result, inclusive
+     * @param to last day of the result, inclusive
+     * @param windowDays number of days each average looks back over, including the day itself
+     * @return one average per day from {@code from} to {@code to}; NaN for days with no score in their window
+     */
+    public double[] getMovingAverage(String name, LocalDate from, LocalDate to, int windowDays) {
+        if (windowDays < 1) throw new IllegalArgumentException("Window must be at least one day.");
+        int fromDay = Math.toIntExact(from.toEpochDay());
+        int toDay = Math.toIntExact(to.toEpochDay());
+        double[] averages = new double[Math.max(0, toDay - fromDay + 1)];
+        Arrays.fill(averages, Double.NaN);
+        SortedMap<LocalDate, Integer> history = getHistory(name, from.minusDays(windowDays - 1), to);
+        int[] days = new int[history.size()];
+        int[] scores = new int[history.size()];
+        int n = 0;
+        for (Map.Entry<LocalDate, Integer> entry : history.entrySet()) {
+            days[n] = (int) entry.getKey().toEpochDay();
+            scores[n++] = entry.getValue();
+        }
+
+        // Slide the window one day at a time, adding scores that enter it and removing those that leave
+        long sum = 0;
+        int head = 0;
+        int tail = 0;
+        for (int day = fromDay; day <= toDay; day++) {
+            while (head < n && days[head] <= day) sum += scores[head++];
+            while (tail < head && days[tail] <= day - windowDays) sum -= scores[tail++];
+            if (head > tail) averages[day - fromDay] = (double) sum / (head - tail);
+        }
+        return averages;
+    }
+
+    /**
+     * Returns the groups whose score rose or fell the most between two days.
+     * Only the row holding each of the two days is read for every group, however long the history is.
+     *
+     * @param from the earlier day
+     * @param to the later day
+     * @param k largest number of groups to return
+     * @param risers true for the biggest rises, false for the biggest falls
+     * @return the moves, biggest first, empty if an error occurred
+     */
+    public List<Move> topMovers(LocalDate from, LocalDate to, int k, boolean risers) {
+        if (k <= 0) return new ArrayList<>();
+        int fromDay = Math.toIntExact(from.toEpochDay());
+        int toDay = Math.toIntExact(to.toEpochDay());
+        Comparator<Move> order = Comparator.comparingInt(risers ? Move::getChange : (Move move) -> -move.getChange());
+        PriorityQueue<Move> best = new PriorityQueue<>(k + 1, order);
+
+        try {
+            manager.withReader("topMovers", connection -> {
+                Map<String, Integer> before = scoresInChunk(connection, fromDay);
+                Map<String, Integer> after = scoresInChunk(connection, toDay);
+                PreparedStatement stmt = manager.prepare(connection, SCORE_ON_SQL);
+                // Groups with no score in the block of one of the days are looked up one by one
+                for (String name : after.keySet()) {
+                    if (!before.containsKey(name)) before.put(name, scoreOn(stmt, name, fromDay));
+                }
+                for (String name : before.keySet()) {
+                    if (!after.containsKey(name)) after.put(name, scoreOn(stmt, name, toDay));
+                }
+                for (Map.Entry<String, Integer> entry : before.entrySet()) {
+                    Integer fromScore = entry.getValue();
+                    Integer toScore = after.get(entry.getKey());
+                    if (fromScore == null || toScore == null) continue;
+                    best.add(new Move(entry.getKey(), fromScore, toScore));
+                    if (best.size() > k) best.poll();
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            System.out.println("Error reading score history: " + e.getMessage());
+            return new ArrayList<>();
+        }
+
+        List<Move> moves = new ArrayList<>(best);
+        moves.sort(Collections.reverseOrder(order));
+        return moves;
+    }
+
+    /**
+     * Reads every group's score on a day from the rows of the block that holds the day.
+     * Groups whose block starts after the day are left out, as their score comes from an earlier row.
+     */
+    private Map<String, Integer> scoresInChunk(Connection connection, int day) throws SQLException {
+        Map<String, Integer> scores = new HashMap<>();
+        PreparedStatement stmt = manager.prepare(connection,
+                "SELECT " + CHUNK_COLUMNS + ", group_name FROM score_chunks WHERE chunk_start = ? AND first_day <= ?");
+        stmt.setInt(1, chunkStart(day));
+        stmt.setInt(2, day);
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) scores.put(rs.getString(11), Chunk.read(rs).scoreOn(day));
+        }
+        return scores;
+    }
+
+    /**
+     * Finds a group's score on a day using the row of the day's block and the one before it.
+     */
+    private static Integer scoreOn(PreparedStatement stmt, String name, int day) throws SQLException {
+        stmt.setString(1, name);
+        stmt.setInt(2, day);
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                Chunk chunk = Chunk.read(rs);
+                if (chunk.firstDay <= day) return chunk.scoreOn(day);
+            }
+        }
+        return null;
+    }
+
+    private List<Chunk> readRange(Connection connection, String name, int fromDay, int toDay) throws SQLException {
+        List<Chunk> chunks = new ArrayList<>();
+        PreparedStatement stmt = manager.prepare(connection, RANGE_SQL);
+        stmt.setString(1, name);
+        stmt.setInt(2, chunkStart(fromDay));
+        stmt.setInt(3, toDay);
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) chunks.add(Chunk.read(rs));
+        }
+        return chunks;
+    }
+
+    private static int chunkStart(int day) {
+        return Math.floorDiv(day, CHUNK_DAYS) * CHUNK_DAYS;
+    }
+
+    /**
+     * Encodes the gap in days and the change in score since the previous entry.
+     * The day gap is never negative; the score change is zigzag-encoded so small falls stay small.
+     */
+    private static byte[] encodeEntry(int dayGap, int scoreChange) {
+        byte[] buffer = new byte[10];
+        int length = writeVarint(buffer, 0, dayGap);
+        length = writeVarint(buffer, length, (scoreChange << 1) ^ (scoreChange >> 31));
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private static int writeVarint(byte[] buffer, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+
+    /**
+     * Decodes every entry of a chunk into the given arrays, which must hold at least {@code chunk.count} values.
+     */
+    private static void decode(Chunk chunk, int[] days, int[] scores) {
+        byte[] data = chunk.data;
+        int position = 0;
+        int day = chunk.start;
+        int score = 0;
+        for (int i = 0; i < chunk.count; i++) {
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            int zigzag = 0;
+            shift = 0;
+            do {
+                b = data[position++];
+                zigzag |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            day += gap;
+            score += (zigzag >>> 1) ^ -(zigzag & 1);
+            days[i] = day;
+            scores[i] = score;
+        }
+    }
+}
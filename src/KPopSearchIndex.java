@@ -0,0 +1,536 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Fuzzy search over group names, latest albums and member names.
+ * Every text is lower-cased, stripped of punctuation and cut into overlapping three-letter
+ * pieces (trigrams). An inverted index maps each trigram to the texts containing it, so a
+ * search only looks at texts that share at least one trigram with the query. Texts are scored
+ * by how many trigrams they share with the query, which finds partial and misspelled names too.
+ * The index is loaded from the database on first use and kept in sync through the manager's
+ * change notifications. Changes made by other programs are noticed through SQLite's data version
+ * and cause a reload.
+ */
+public class KPopSearchIndex implements KPopGroupListener {
+    /** Minimum time between two checks for outside changes, unless changed. */
+    public static final long DEFAULT_CHECK_INTERVAL_MS = 1000;
+    /** Matches scoring below this are not returned. */
+    public static final double MIN_SCORE = 0.3;
+
+    /** The group field a match was found in. */
+    public enum Field {
+        NAME(1.0), ALBUM(0.9), MEMBER(0.8);
+
+        final double weight;
+
+        Field(double weight) {
+            this.weight = weight;
+        }
+    }
+
+    /** One search result: a group and the text of it that matched best. */
+    public static final class Match {
+        public final KPopGroup group;
+        public final Field field;
+        public final String text;
+        public final double score;
+
+        Match(KPopGroup group, Field field, String text, double score) {
+            this.group = group;
+            this.field = field;
+            this.text = text;
+            this.score = score;
+        }
+
+        /**
+         * @return short description of the match
+         */
+        @Override
+        public String toString() {
+            return field == Field.NAME ? group.name : group.name + " (" + field.name().toLowerCase() + ": " + text + ")";
+        }
+    }
+
+    private static final Field[] FIELDS = Field.values();
+
+    /** Best score first, ties broken by group name. */
+    private static final Comparator<Match> BEST_FIRST =
+            Comparator.comparingDouble((Match m) -> m.score).reversed().thenComparing(m -> m.group.name);
+
+    /** A growable list of entry ids. */
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+
+    private final KPopDatabaseManager manager;
+    private final long checkIntervalMs;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock. An entry is one indexed text; a group has one entry per field value.
+    private final PostingTable postings = new PostingTable();
+    private final Map<String, Integer> groupIds = new HashMap<>();
+    private KPopGroup[] groups = new KPopGroup[16];
+    private int groupCount;
+    private int deadGroups;
+    private int[] entryGroup = new int[64];
+    private byte[] entryField = new byte[64];
+    private String[] entryText = new String[64];
+    private int[] entryTrigrams = new int[64];
+    private int entryCount;
+    private boolean loaded;
+
+    private volatile long dataVersion;
+    private volatile long lastCheck;
+
+    /**
+     * Creates an index with the default check interval.
+     *
+     * @param manager connected database manager
+     */
+    public KPopSearchIndex(KPopDatabaseManager manager) {
+        this(manager, DEFAULT_CHECK_INTERVAL_MS);
+    }
+
+    /**
+     * Creates an index and starts listening to the manager's changes.
+     * Nothing is read from the database until the first search.
+     *
+     * @param manager connected database manager
+     * @param checkIntervalMs minimum time between two checks for outside changes
+     */
+    public KPopSearchIndex(KPopDatabaseManager manager, long checkIntervalMs) {
+        this.manager = manager;
+        this.checkIntervalMs = checkIntervalMs;
+        this.lastCheck = System.currentTimeMillis();
+        manager.addGroupListener(this);
+    }
+
+    /**
+     * Finds the groups whose name, latest album or a member's name best match the text.
+     *
+     * @param text what the user typed; case and punctuation are ignored
+     * @param limit maximum number of groups to return
+     * @return the best match per group, best first
+     */
+    public List<Match> search(String text, int limit) {
+        String query = normalize(text);
+        if (query.isEmpty() || limit <= 0) return new ArrayList<>();
+        long[] queryTrigrams = trigrams(query);
+        ensureLoaded();
+
+        lock.readLock().lock();
+        try {
+            // Count the trigrams every entry shares with the query
+            EntryCounter shared = new EntryCounter();
+            for (long trigram : queryTrigrams) {
+                Postings list = postings.get(trigram);
+                if (list == null) continue;
+                for (int i = 0; i < list.size; i++) shared.increment(list.ids[i]);
+            }
+
+            // Keep the best entry per group, then the best groups
+            Map<Integer, Match> best = new HashMap<>();
+            for (int i = 0; i < shared.size(); i++) {
+                int entry = shared.key(i);
+                KPopGroup group = groups[entryGroup[entry]];
+                if (group == null) continue;
+                Field field = FIELDS[entryField[entry]];
+                double score = score(shared.value(i), queryTrigrams.length, entryTrigrams[entry]) * field.weight;
+                if (score < MIN_SCORE) continue;
+                Match previous = best.get(entryGroup[entry]);
+                if (previous == null || score > previous.score) {
+                    best.put(entryGroup[entry], new Match(group, field, entryText[entry], score));
+                }
+            }
+
+            PriorityQueue<Match> top = new PriorityQueue<>(BEST_FIRST.reversed());
+            for (Match match : best.values()) {
+                top.add(match);
+                if (top.size() > limit) top.poll();
+            }
+            List<Match> result = new ArrayList<>(top.size());
+            for (Match match : top) result.add(new Match(copyOf(match.group), match.field, match.text, match.score));
+            result.sort(BEST_FIRST);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of groups in the index
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return groupIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Forgets the index. The next search reloads it from the database.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            clear();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void groupAdded(KPopGroup group) {
+        KPopGroup stored = copyOf(group);
+        lock.writeLock().lock();
+        try {
+            if (loaded) put(stored);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void groupUpdated(String name, KPopGroup group) {
+        KPopGroup stored = copyOf(group);
+        stored.name = name;
+        lock.writeLock().lock();
+        try {
+            if (loaded) put(stored);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void groupDeleted(String name) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) remove(name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Similarity of a query and an indexed text, between 0 and 1.
+     * Half of it is how much of the query was found (so partial names score well),
+     * half is the overlap of both trigram sets (so closer matches score higher).
+     */
+    private static double score(int shared, int queryTrigrams, int textTrigrams) {
+        double coverage = (double) shared / queryTrigrams;
+        double overlap = (double) shared / (queryTrigrams + textTrigrams - shared);
+        return (coverage + overlap) / 2;
+    }
+
+    /**
+     * Loads the index if it is empty, or reloads it if another connection changed the database.
+     */
+    private void ensureLoaded() {
+        long now = System.currentTimeMillis();
+        if (now - lastCheck >= checkIntervalMs) {
+            lastCheck = now;
+            long version = manager.getDataVersion();
+            if (version != dataVersion) {
+                dataVersion = version;
+                invalidate();
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            if (loaded) return;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (loaded) return;
+            dataVersion = manager.getDataVersion();
+            manager.forEachGroup(this::put);
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a group, replacing any group with the same name. Must hold the write lock.
+     * If the indexed texts are unchanged, as after a score update, only the group is swapped
+     * and its entries are kept, so frequent score changes do not pile up dead entries.
+     */
+    private void put(KPopGroup group) {
+        Integer existing = groupIds.get(group.name);
+        if (existing != null && sameTexts(groups[existing], group)) {
+            groups[existing] = group;
+            return;
+        }
+        remove(group.name);
+        if (groupCount == groups.length) groups = Arrays.copyOf(groups, groupCount * 2);
+        int id = groupCount++;
+        groups[id] = group;
+        groupIds.put(group.name, id);
+
+        addEntry(id, Field.NAME, group.name);
+        if (group.latestAlbum != null) addEntry(id, Field.ALBUM, group.latestAlbum);
+        if (group.members != null) {
+            for (String member : group.members) addEntry(id, Field.MEMBER, member.trim());
+        }
+    }
+
+    private static boolean sameTexts(KPopGroup indexed, KPopGroup group) {
+        return Objects.equals(indexed.latestAlbum, group.latestAlbum) && Objects.equals(indexed.members, group.members);
+    }
+
+    /**
+     * Copies a group, so that neither the caller nor the search results share the indexed object.
+     */
+    private static KPopGroup copyOf(KPopGroup group) {
+        KPopGroup copy = new KPopGroup(group.name, group.debutDate,
+                group.members == null ? null : new ArrayList<>(group.members), group.agency,
+                group.latestAlbum, group.status, group.popularityScore);
+        copy.version = group.version;
+        return copy;
+    }
+
+    /**
+     * Removes a group. Its entries stay in the posting lists until the next compaction
+     * and are skipped by searches meanwhile. Must hold the write lock.
+     */
+    private void remove(String name) {
+        Integer id = groupIds.remove(name);
+        if (id == null) return;
+        groups[id] = null;
+        deadGroups++;
+        if (deadGroups > 1024 && deadGroups > groupIds.size()) compact();
+    }
+
+    /**
+     * Rebuilds the index from the live groups to drop the entries of removed ones.
+     */
+    private void compact() {
+        List<KPopGroup> live = new ArrayList<>(groupIds.size());
+        for (int i = 0; i < groupCount; i++) {
+            if (groups[i] != null) live.add(groups[i]);
+        }
+        clear();
+        for (KPopGroup group : live) put(group);
+    }
+
+    private void clear() {
+        postings.clear();
+        groupIds.clear();
+        Arrays.fill(groups, 0, groupCount, null);
+        Arrays.fill(entryText, 0, entryCount, null);
+        groupCount = 0;
+        deadGroups = 0;
+        entryCount = 0;
+    }
+
+    private void addEntry(int group, Field field, String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) return;
+        long[] textTrigrams = trigrams(normalized);
+
+        if (entryCount == entryGroup.length) {
+            int capacity = entryCount * 2;
+            entryGroup = Arrays.copyOf(entryGroup, capacity);
+            entryField = Arrays.copyOf(entryField, capacity);
+            entryText = Arrays.copyOf(entryText, capacity);
+            entryTrigrams = Arrays.copyOf(entryTrigrams, capacity);
+        }
+        int entry = entryCount++;
+        entryGroup[entry] = group;
+        entryField[entry] = (byte) field.ordinal();
+        entryText[entry] = text;
+        entryTrigrams[entry] = textTrigrams.length;
+        for (long trigram : textTrigrams) {
+            postings.getOrCreate(trigram).add(entry);
+        }
+    }
+
+    /**
+     * Lower-cases text and turns every run of characters that are not letters or digits into one space.
+     */
+    static String normalize(String text) {
+        if (text == null) return "";
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int end = sb.length();
+        if (end > 0 && sb.charAt(end - 1) == ' ') sb.setLength(end - 1);
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the distinct trigrams of normalized text, each packed into a long as three 16-bit chars
+     * and scrambled for hashing.
+     * The text is padded with spaces so that its first and last letters count as much as the ones in the middle.
+     */
+    static long[] trigrams(String normalized) {
+        int length = normalized.length();
+        long[] result = new long[length + 1];
+        long window = ((long) ' ' << 16) | ' ';
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? normalized.charAt(i) : ' ';
+            window = ((window << 16) | c) & 0xFFFF_FFFF_FFFFL;
+            // Multiplying by an odd constant keeps trigrams distinct but spreads their hash codes;
+            // Long.hashCode of the plain packed chars would put most trigrams in a few buckets
+            result[i] = window * 0x9E37_79B9_7F4A_7C15L;
+        }
+        Arrays.sort(result);
+        int distinct = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (i == 0 || result[i] != result[i - 1]) result[distinct++] = result[i];
+        }
+        return distinct == result.length ? result : Arrays.copyOf(result, distinct);
+    }
+
+    /**
+     * Maps trigrams to their posting lists, without boxing the keys.
+     * Open addressing with linear probing.
+     */
+    private static final class PostingTable {
+        private long[] keys = new long[1024];
+        private Postings[] values = new Postings[1024];
+        private int size;
+
+        Postings get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = mix(key) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) return values[slot];
+            }
+            return null;
+        }
+
+        Postings getOrCreate(long key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            for (; values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) return values[slot];
+            }
+            if (size * 2 >= keys.length) {
+                grow();
+                return getOrCreate(key);
+            }
+            keys[slot] = key;
+            values[slot] = new Postings();
+            size++;
+            return values[slot];
+        }
+
+        void clear() {
+            keys = new long[1024];
+            values = new Postings[1024];
+            size = 0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Postings[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Postings[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] == null) continue;
+                int slot = mix(oldKeys[i]) & mask;
+                while (values[slot] != null) slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+
+        private static int mix(long key) {
+            return (int) (key ^ (key >>> 32));
+        }
+    }
+
+    /**
+     * Counts how often each entry id was seen, without boxing.
+     * Open addressing with linear probing; the order of first sight is kept for iteration.
+     */
+    private static final class EntryCounter {
+        private int[] keys = new int[64];
+        private int[] counts = new int[64];
+        private int[] order = new int[32];
+        private int size;
+
+        void increment(int key) {
+            if (size * 2 >= keys.length) grow();
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (counts[slot] != 0) {
+                if (keys[slot] == key) {
+                    counts[slot]++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            counts[slot] = 1;
+            if (size == order.length) order = Arrays.copyOf(order, size * 2);
+            order[size++] = slot;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int key(int i) {
+            return keys[order[i]];
+        }
+
+        int value(int i) {
+            return counts[order[i]];
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            int[] oldOrder = Arrays.copyOf(order, size);
+            keys = new int[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldOrder.length; i++) {
+                int key = oldKeys[oldOrder[i]];
+                int slot = mix(key) & mask;
+                while (counts[slot] != 0) slot = (slot + 1) & mask;
+                keys[slot] = key;
+                counts[slot] = oldCounts[oldOrder[i]];
+                order[i] = slot;
+            }
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
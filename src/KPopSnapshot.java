@@ -0,0 +1,576 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32C;
+
+/**
+ * Read-only copy of the groups table in a compact binary file that is memory-mapped instead
+ * of read, so opening it takes the same time whatever its size. Lookups by name, ranking and
+ * top-K read straight from the mapped file; a KPopGroup is only built for the rows asked for.
+ *
+ * File layout, all numbers little-endian:
+ * <pre>
+ * header       magic "KPOPSNAP", format version, row and string counts, section offsets,
+ *              file length and a CRC32C of everything after the header
+ * records      one fixed-width record of {@value #RECORD_SIZE} bytes per group: string ids of
+ *              name, members, agency and album, debut date as an epoch day, score, status
+ * name index   row numbers sorted by the UTF-8 bytes of the name, for binary search
+ * rank index   row numbers sorted by score, highest first, ties by name
+ * strings      offsets of every stored string, then their UTF-8 bytes
+ * </pre>
+ * Agencies and albums are stored once however many groups share them, so they cost four
+ * bytes per group. Snapshots are written to a temporary file and moved into place, so
+ * a reader never maps a half-written file.
+ */
+public class KPopSnapshot {
+    /** Version of the file format written by this class. */
+    public static final int FORMAT_VERSION = 1;
+    /** Size in bytes of one group record. */
+    public static final int RECORD_SIZE = 32;
+
+    private static final byte[] MAGIC = "KPOPSNAP".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_SIZE = 80;
+    private static final int NULL_STRING = -1;
+    private static final byte NO_STATUS = -1;
+    /** Record flag: the debut field holds a string id because the date is not in YYYY-MM-DD form. */
+    private static final byte FLAG_DEBUT_TEXT = 1;
+
+    private static final int NAME = 0;
+    private static final int MEMBERS = 4;
+    private static final int AGENCY = 8;
+    private static final int ALBUM = 12;
+    private static final int DEBUT = 16;
+    private static final int SCORE = 20;
+    private static final int STATUS = 24;
+    private static final int FLAGS = 25;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int records;
+    private final int nameIndex;
+    private final int rankIndex;
+    private final int stringOffsets;
+    private final int stringData;
+    private final long checksum;
+
+    private KPopSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a KPopDMS snapshot.");
+        int version = buffer.getInt(8);
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ", expected " + FORMAT_VERSION + ".");
+        }
+        size = buffer.getInt(12);
+        records = (int) buffer.getLong(24);
+        nameIndex = (int) buffer.getLong(32);
+        rankIndex = (int) buffer.getLong(40);
+        stringOffsets = (int) buffer.getLong(48);
+        stringData = (int) buffer.getLong(56);
+        long length = buffer.getLong(64);
+        checksum = buffer.getInt(72) & 0xFFFFFFFFL;
+        if (length != buffer.capacity()) {
+            throw new IOException("Snapshot is " + buffer.capacity() + " bytes, header says " + length + ".");
+        }
+    }
+
+    /**
+     * Maps a snapshot file. Only the header is read, so this is fast for any file size;
+     * call {@link #verifyChecksum()} to check the whole file.
+     *
+     * @param path the snapshot file
+     * @return the opened snapshot
+     * @throws IOException if the file cannot be read, is not a snapshot, or has another format version
+     */
+    public static KPopSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE) throw new IOException("Not a KPopDMS snapshot.");
+            if (length > Integer.MAX_VALUE) throw new IOException("Snapshot is too large to map.");
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            return new KPopSnapshot(mapped.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    /**
+     * Reads the whole file and compares it with the checksum stored in the header.
+     *
+     * @return true if the file is intact
+     */
+    public boolean verifyChecksum() {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(HEADER_SIZE));
+        return crc.getValue() == checksum;
+    }
+
+    /**
+     * @return number of groups in the snapshot
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds a group's row by binary search over the name index.
+     *
+     * @param name the group name
+     * @return the row, or -1 if there is no group with that name
+     */
+    public int findRow(String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int row = buffer.getInt(nameIndex + mid * 4);
+            int cmp = compareString(record(row) + NAME, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Looks up a group by name.
+     *
+     * @param name the group name
+     * @return the group, or null if there is none with that name
+     */
+    public KPopGroup getGroup(String name) {
+        int row = findRow(name);
+        return row < 0 ? null : getGroup(row);
+    }
+
+    /**
+     * Builds the group stored in a row.
+     *
+     * @param row row index
+     * @return the group
+     */
+    public KPopGroup getGroup(int row) {
+        String members = string(record(row) + MEMBERS);
+        return new KPopGroup(getName(row), getDebutDate(row), KPopValidator.splitMembers(members),
+                getAgency(row), getLatestAlbum(row), getStatus(row), getPopularityScore(row));
+    }
+
+    /**
+     * @param row row index
+     * @return the group name
+     */
+    public String getName(int row) {
+        return string(record(row) + NAME);
+    }
+
+    /**
+     * @param row row index
+     * @return the debut date as stored in the database
+     */
+    public String getDebutDate(int row) {
+        int record = record(row);
+        if ((buffer.get(record + FLAGS) & FLAG_DEBUT_TEXT) != 0) return string(record + DEBUT);
+        return LocalDate.ofEpochDay(buffer.getInt(record + DEBUT)).toString();
+    }
+
+    /**
+     * @param row row index
+     * @return the agency, or null if the group has none
+     */
+    public String getAgency(int row) {
+        return string(record(row) + AGENCY);
+    }
+
+    /**
+     * @param row row index
+     * @return the latest album, or null if the group has none
+     */
+    public String getLatestAlbum(int row) {
+        return string(record(row) + ALBUM);
+    }
+
+    /**
+     * @param row row index
+     * @return the status text, or null if it was not a known status
+     */
+    public String getStatus(int row) {
+        byte code = buffer.get(record(row) + STATUS);
+        return code == NO_STATUS ? null : KPopGroupStatus.fromCode(code).toString();
+    }
+
+    /**
+     * @param row row index
+     * @return the popularity score, read without building the group
+     */
+    public int getPopularityScore(int row) {
+        return buffer.getInt(record(row) + SCORE);
+    }
+
+    /**
+     * Returns the most popular groups, read from the front of the rank index.
+     *
+     * @param k number of groups wanted
+     * @return up to k groups, most popular first
+     */
+    public List<KPopGroup> topK(int k) {
+        int count = Math.max(0, Math.min(k, size));
+        List<KPopGroup> top = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) top.add(getGroup(buffer.getInt(rankIndex + i * 4)));
+        return top;
+    }
+
+    /**
+     * Returns a group's position in the ranking, found by binary search over the rank index.
+     *
+     * @param name the group name
+     * @return the rank starting at 1, or -1 if there is no group with that name
+     */
+    public int getRank(String name) {
+        int row = findRow(name);
+        if (row < 0) return -1;
+        int score = getPopularityScore(row);
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int other = buffer.getInt(rankIndex + mid * 4);
+            int cmp = Integer.compare(score, getPopularityScore(other));
+            if (cmp == 0) cmp = compareString(record(other) + NAME, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns every group in the order they were exported, built one at a time.
+     *
+     * @return iterator over the groups
+     */
+    public Iterator<KPopGroup> iterator() {
+        return new Iterator<KPopGroup>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public KPopGroup next() {
+                if (next >= size) throw new NoSuchElementException();
+                return getGroup(next++);
+            }
+        };
+    }
+
+    /**
+     * Copies every group of the snapshot into a database.
+     *
+     * @param manager connected manager of the target database
+     * @return a summary of stored and rejected rows
+     */
+    public KPopImportResult importInto(KPopDatabaseManager manager) {
+        return manager.importGroups(iterator());
+    }
+
+    private int record(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        return records + row * RECORD_SIZE;
+    }
+
+    /**
+     * Decodes the string whose id is stored at a position of the buffer.
+     */
+    private String string(int position) {
+        int id = buffer.getInt(position);
+        if (id == NULL_STRING) return null;
+        int start = buffer.getInt(stringOffsets + id * 4);
+        int end = buffer.getInt(stringOffsets + id * 4 + 4);
+        byte[] bytes = new byte[end - start];
+        buffer.get(stringData + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares the string whose id is stored at a position of the buffer with UTF-8 bytes, as unsigned bytes.
+     */
+    private int compareString(int position, byte[] key) {
+        int id = buffer.getInt(position);
+        int start = stringData + buffer.getInt(stringOffsets + id * 4);
+        int length = stringData + buffer.getInt(stringOffsets + id * 4 + 4) - start;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Integer.compare(buffer.get(start + i) & 0xFF, key[i] & 0xFF);
+            if (cmp != 0) return cmp;
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    /**
+     * Writes every group of a database to a snapshot file, replacing any file already there.
+     *
+     * @param manager connected manager of the source database
+     * @param path where the snapshot is written
+     * @return number of groups written
+     * @throws IOException if the file cannot be written
+     */
+    public static int export(KPopDatabaseManager manager, Path path) throws IOException {
+        Builder builder = new Builder();
+        manager.flushScores();
+        try {
+            manager.withReader("exportSnapshot", connection -> {
+                try (Statement stmt = connection.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT name, debut_date, members, agency, latest_album, status, popularity_score FROM groups ORDER BY name")) {
+                    while (rs.next()) {
+                        builder.add(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                                rs.getString(5), rs.getString(6), rs.getInt(7));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new IOException("Cannot read groups: " + e.getMessage(), e);
+        }
+        return builder.write(path);
+    }
+
+    /**
+     * Collects groups in memory as records and strings, then lays them out in the file format.
+     */
+    private static final class Builder {
+        private final Map<String, Integer> shared = new HashMap<>();
+        private final List<byte[]> stringBytes = new ArrayList<>();
+        private int[] fields = new int[1024 * 6];
+        private byte[] statuses = new byte[1024];
+        private byte[] flags = new byte[1024];
+        private int size;
+
+        /**
+         * Adds a group given as the raw column values of a groups row.
+         */
+        void add(String name, String debutDate, String members, String agency, String latestAlbum, String status, int popularityScore) {
+            if (size == statuses.length) {
+                fields = Arrays.copyOf(fields, fields.length * 2);
+                statuses = Arrays.copyOf(statuses, statuses.length * 2);
+                flags = Arrays.copyOf(flags, flags.length * 2);
+            }
+            int base = size * 6;
+            fields[base] = append(name == null ? "" : name);
+            fields[base + 1] = append(members);
+            fields[base + 2] = intern(agency);
+            fields[base + 3] = intern(latestAlbum);
+            Integer epochDay = epochDay(debutDate);
+            if (epochDay == null) {
+                fields[base + 4] = intern(debutDate);
+                flags[size] = FLAG_DEBUT_TEXT;
+            } else {
+                fields[base + 4] = epochDay;
+            }
+            fields[base + 5] = popularityScore;
+            KPopGroupStatus parsed = KPopGroupStatus.fromString(status);
+            statuses[size] = parsed == null ? NO_STATUS : (byte) parsed.ordinal();
+            size++;
+        }
+
+        /**
+         * Stores a string that is shared by many groups, such as an agency, only once.
+         */
+        private int intern(String s) {
+            if (s == null) return NULL_STRING;
+            Integer id = shared.get(s);
+            if (id != null) return id;
+            id = append(s);
+            shared.put(s, id);
+            return id;
+        }
+
+        /**
+         * Stores a string that is almost always unique, such as a name, without looking for an earlier copy.
+         */
+        private int append(String s) {
+            if (s == null) return NULL_STRING;
+            stringBytes.add(s.getBytes(StandardCharsets.UTF_8));
+            return stringBytes.size() - 1;
+        }
+
+        /**
+         * @return the date as an epoch day, or null if it would not come back as the same text
+         */
+        private static Integer epochDay(String date) {
+            int day = KPopValidator.toEpochDay(date);
+            return day == KPopValidator.NO_DATE ? null : day;
+        }
+
+        int write(Path path) throws IOException {
+            int[] byName = rowsByName();
+            int[] byRank = rowsByRank(byName);
+
+            long stringLength = 0;
+            for (byte[] bytes : stringBytes) stringLength += bytes.length;
+            long records = HEADER_SIZE;
+            long nameIndex = records + (long) size * RECORD_SIZE;
+            long rankIndex = nameIndex + size * 4L;
+            long stringOffsets = rankIndex + size * 4L;
+            long stringData = stringOffsets + (stringBytes.size() + 1) * 4L;
+            long length = stringData + stringLength;
+            if (length > Integer.MAX_VALUE) throw new IOException("Too much data for one snapshot file.");
+
+            ByteBuffer out = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+            out.put(MAGIC).putInt(FORMAT_VERSION).putInt(size).putInt(stringBytes.size()).putInt(0)
+                    .putLong(records).putLong(nameIndex).putLong(rankIndex).putLong(stringOffsets).putLong(stringData)
+                    .putLong(length);
+            out.position(HEADER_SIZE);
+            for (int row = 0; row < size; row++) {
+                int base = row * 6;
+                out.putInt(fields[base]).putInt(fields[base + 1]).putInt(fields[base + 2]).putInt(fields[base + 3])
+                        .putInt(fields[base + 4]).putInt(fields[base + 5]).put(statuses[row]).put(flags[row]);
+                out.position(out.position() + RECORD_SIZE - FLAGS - 1);
+            }
+            for (int row : byName) out.putInt(row);
+            for (int row : byRank) out.putInt(row);
+            int offset = 0;
+            for (byte[] bytes : stringBytes) {
+                out.putInt(offset);
+                offset += bytes.length;
+            }
+            out.putInt(offset);
+            for (byte[] bytes : stringBytes) out.put(bytes);
+
+            CRC32C crc = new CRC32C();
+            crc.update(out.duplicate().position(HEADER_SIZE));
+            out.putInt(72, (int) crc.getValue());
+
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    out.rewind();
+                    while (out.hasRemaining()) channel.write(out);
+                    channel.force(true);
+                }
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            return size;
+        }
+
+        private byte[] name(int row) {
+            return stringBytes.get(fields[row * 6]);
+        }
+
+        /**
+         * Returns the rows in UTF-8 byte order of their names. Rows read with ORDER BY name are
+         * already in that order, which is SQLite's default collation, so usually nothing is sorted.
+         */
+        private int[] rowsByName() {
+            int[] rows = new int[size];
+            for (int i = 0; i < size; i++) rows[i] = i;
+            boolean sorted = true;
+            for (int i = 1; i < size && sorted; i++) sorted = Arrays.compareUnsigned(name(i - 1), name(i)) <= 0;
+            if (sorted) return rows;
+
+            Integer[] boxed = new Integer[size];
+            for (int i = 0; i < size; i++) boxed[i] = i;
+            Arrays.sort(boxed, (a, b) -> Arrays.compareUnsigned(name(a), name(b)));
+            for (int i = 0; i < size; i++) rows[i] = boxed[i];
+            return rows;
+        }
+
+        /**
+         * Returns the rows by score, highest first, ties by name. Each row is packed into a long of
+         * complemented score and position in name order, so a plain primitive sort does the work.
+         * The complement reverses the order of every int, including Integer.MIN_VALUE, which
+         * negation leaves unchanged.
+         */
+        private int[] rowsByRank(int[] byName) {
+            long[] keys = new long[size];
+            for (int position = 0; position < size; position++) {
+                keys[position] = ((long) ~fields[byName[position] * 6 + 5] << 32) | position;
+            }
+            Arrays.sort(keys);
+            int[] rows = new int[size];
+            for (int i = 0; i < size; i++) rows[i] = byName[(int) keys[i]];
+            return rows;
+        }
+    }
+
+    /**
+     * Exports a database to a snapshot, imports a snapshot into a database, or checks a snapshot.
+     *
+     * @param args {@code export <database> <snapshot>}, {@code import <snapshot> <database>} or {@code verify <snapshot>}
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || (!args[0].equals("verify") && args.length < 3)) {
+            System.out.println("Usage: java KPopSnapshot export <database> <snapshot> | import <snapshot> <database> | verify <snapshot>");
+            return;
+        }
+        try {
+            switch (args[0]) {
+                case "export": {
+                    KPopDatabaseManager manager = new KPopDatabaseManager();
+                    if (!manager.connect(args[1])) return;
+                    try {
+                        System.out.println("Exported " + export(manager, Path.of(args[2])) + " groups.");
+                    } finally {
+                        manager.close();
+                    }
+                    break;
+                }
+                case "import": {
+                    KPopSnapshot snapshot = open(Path.of(args[1]));
+                    if (!snapshot.verifyChecksum()) {
+                        System.out.println("Error: snapshot checksum does not match.");
+                        return;
+                    }
+                    KPopDatabaseManager manager = new KPopDatabaseManager();
+                    if (!manager.connect(args[2])) return;
+                    try {
+                        System.out.println(snapshot.importInto(manager));
+                    } finally {
+                        manager.close();
+                    }
+                    break;
+                }
+                case "verify": {
+                    KPopSnapshot snapshot = open(Path.of(args[1]));
+                    System.out.println(snapshot.size() + " groups, format version " + FORMAT_VERSION + ", checksum "
+                            + (snapshot.verifyChecksum() ? "OK" : "MISMATCH"));
+                    break;
+                }
+                default:
+                    System.out.println("Unknown command " + args[0]);
+            }
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+}
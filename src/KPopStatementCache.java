@@ -0,0 +1,94 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps prepared statements open for one connection so the same SQL is only parsed once.
+ * Statements are looked up by their SQL text. When the cache is full the least recently
+ * used statement is closed to make room. The cache is used by one thread at a time
+ * (whoever has borrowed its connection), but its counters can be read from any thread.
+ */
+public class KPopStatementCache {
+    /** Number of statements kept per connection. */
+    public static final int DEFAULT_CAPACITY = 32;
+
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates an empty cache for a connection.
+     *
+     * @param connection the connection statements are prepared on
+     * @param capacity maximum number of statements to keep open
+     */
+    public KPopStatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= capacity) return false;
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns an open statement for the SQL, preparing it only if it is not cached.
+     * The caller must not close the returned statement, but must close any result sets it opens.
+     *
+     * @param sql the SQL text
+     * @return a prepared statement ready to be bound
+     * @throws SQLException if the statement cannot be prepared
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement stmt = statements.get(sql);
+        if (stmt != null && !stmt.isClosed()) {
+            hits.incrementAndGet();
+            return stmt;
+        }
+        misses.incrementAndGet();
+        stmt = connection.prepareStatement(sql);
+        statements.put(sql, stmt);
+        return stmt;
+    }
+
+    /**
+     * @return number of times a cached statement was reused
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of times a statement had to be prepared
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Closes every cached statement.
+     */
+    public void close() {
+        Iterator<PreparedStatement> it = statements.values().iterator();
+        while (it.hasNext()) {
+            closeQuietly(it.next());
+            it.remove();
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            System.out.println("Error closing statement: " + e.getMessage());
+        }
+    }
+}
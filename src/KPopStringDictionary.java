@@ -0,0 +1,62 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives every distinct string a small integer code, so a column full of repeated values
+ * such as agency names can be stored as ints and each distinct string is kept only once.
+ * Codes are handed out in order starting at 0 and never change.
+ * Not thread-safe; callers that share a dictionary must synchronize.
+ */
+public class KPopStringDictionary {
+    /** Code used for a null string. */
+    public static final int NULL_CODE = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * Returns the code of a string, adding the string if it is new.
+     *
+     * @param s the string, may be null
+     * @return its code, or {@link #NULL_CODE} for null
+     */
+    public int encode(String s) {
+        if (s == null) return NULL_CODE;
+        Integer code = codes.get(s);
+        if (code != null) return code;
+        int added = strings.size();
+        strings.add(s);
+        codes.put(s, added);
+        return added;
+    }
+
+    /**
+     * Returns the code of a string without adding it.
+     *
+     * @param s the string
+     * @return its code, or {@link #NULL_CODE} if the string was never encoded
+     */
+    public int lookup(String s) {
+        Integer code = s == null ? null : codes.get(s);
+        return code == null ? NULL_CODE : code;
+    }
+
+    /**
+     * Returns the string for a code.
+     *
+     * @param code a code returned by {@link #encode(String)}
+     * @return the string, or null for {@link #NULL_CODE}
+     */
+    public String decode(int code) {
+        return code == NULL_CODE ? null : strings.get(code);
+    }
+
+    /**
+     * @return number of distinct strings
+     */
+    public int size() {
+        return strings.size();
+    }
+}
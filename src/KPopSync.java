@@ -0,0 +1,329 @@
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings one database up to date with another by copying only the groups that differ.
+ *
+ * Each side is summarized as a hash tree. Every group gets a 64-bit hash of its contents and is
+ * placed in a bucket chosen by the hash of its name, so the same group lands in the same
+ * bucket on both sides. A leaf of the tree holds the combined hash of one bucket and every
+ * inner node the combined hash of the buckets below it. Two trees are compared from the root
+ * down, only into nodes whose hashes differ, so finding c changed groups among n takes about
+ * c &middot; log n comparisons. Only the buckets at the differing leaves are compared row by row,
+ * and the resulting inserts, updates and deletes are applied to the target in one transaction.
+ */
+public class KPopSync {
+    /** Average number of groups per bucket the tree is sized for. */
+    public static final int GROUPS_PER_BUCKET = 8;
+    /** Largest number of buckets, which bounds the memory used by a summary. */
+    public static final int MAX_BUCKETS = 1 << 20;
+
+    private final KPopDatabaseManager source;
+    private final KPopDatabaseManager target;
+
+    /**
+     * Creates a sync from one database to another.
+     *
+     * @param source connected manager of the database to copy from
+     * @param target connected manager of the database to bring up to date
+     */
+    public KPopSync(KPopDatabaseManager source, KPopDatabaseManager target) {
+        this.source = source;
+        this.target = target;
+    }
+
+    /**
+     * Hash tree of one database, with the name and content hash of every group kept per bucket.
+     */
+    public static final class Summary {
+        private final int buckets;
+        private final long[] nodes;
+        private final int[] bucketStarts;
+        private final String[] names;
+        private final long[] hashes;
+
+        private Summary(int buckets, List<String> rowNames, List<Long> rowHashes) {
+            this.buckets = buckets;
+            int size = rowNames.size();
+
+            // Counting sort of the rows by bucket, so each bucket is a contiguous slice
+            int[] bucketOf = new int[size];
+            bucketStarts = new int[buckets + 1];
+            for (int i = 0; i < size; i++) {
+                bucketOf[i] = bucket(rowNames.get(i), buckets);
+                bucketStarts[bucketOf[i] + 1]++;
+            }
+            for (int b = 0; b < buckets; b++) bucketStarts[b + 1] += bucketStarts[b];
+            int[] next = bucketStarts.clone();
+            names = new String[size];
+            hashes = new long[size];
+            for (int i = 0; i < size; i++) {
+                int position = next[bucketOf[i]]++;
+                names[position] = rowNames.get(i);
+                hashes[position] = rowHashes.get(i);
+            }
+
+            // Leaves are nodes[buckets .. 2 * buckets); node i has children 2i and 2i + 1
+            nodes = new long[2 * buckets];
+            for (int b = 0; b < buckets; b++) {
+                long sum = 0;
+                for (int i = bucketStarts[b]; i < bucketStarts[b + 1]; i++) sum += hashes[i];
+                nodes[buckets + b] = mix(sum + bucketStarts[b + 1] - bucketStarts[b]);
+            }
+            for (int i = buckets - 1; i >= 1; i--) nodes[i] = mix(nodes[2 * i] * 31 + nodes[2 * i + 1]);
+        }
+
+        /**
+         * @return hash of the whole table; two databases with the same groups have the same root hash
+         */
+        public long getRootHash() {
+            return nodes[1];
+        }
+
+        /**
+         * @return number of groups summarized
+         */
+        public int size() {
+            return names.length;
+        }
+
+        /**
+         * @return number of leaf buckets
+         */
+        public int getBucketCount() {
+            return buckets;
+        }
+
+        private Map<String, Long> bucketContents(int bucket) {
+            Map<String, Long> contents = new HashMap<>();
+            for (int i = bucketStarts[bucket]; i < bucketStarts[bucket + 1]; i++) contents.put(names[i], hashes[i]);
+            return contents;
+        }
+    }
+
+    /**
+     * The groups that differ between two databases.
+     */
+    public static final class Diff {
+        private final List<String> upserts = new ArrayList<>();
+        private final List<String> deletes = new ArrayList<>();
+        private int comparedNodes;
+
+        /**
+         * @return names of groups that are missing from the target or differ from the source
+         */
+        public List<String> getUpserts() {
+            return upserts;
+        }
+
+        /**
+         * @return names of groups that are in the target but not in the source
+         */
+        public List<String> getDeletes() {
+            return deletes;
+        }
+
+        /**
+         * @return number of tree nodes compared to find the differences
+         */
+        public int getComparedNodes() {
+            return comparedNodes;
+        }
+
+        /**
+         * @return true if the two databases hold the same groups
+         */
+        public boolean isEmpty() {
+            return upserts.isEmpty() && deletes.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return upserts.size() + " to insert or update, " + deletes.size() + " to delete, "
+                    + comparedNodes + " tree nodes compared";
+        }
+    }
+
+    /**
+     * Reads every group of a database and builds its hash tree.
+     *
+     * @param manager connected manager of the database
+     * @param buckets number of leaf buckets, a power of two; both sides of a comparison must use the same number
+     * @return the summary
+     * @throws SQLException if the groups cannot be read
+     */
+    public static Summary summarize(KPopDatabaseManager manager, int buckets) throws SQLException {
+        if (buckets < 1 || Integer.bitCount(buckets) != 1) throw new IllegalArgumentException("Bucket count must be a power of two.");
+        List<String> names = new ArrayList<>();
+        List<Long> hashes = new ArrayList<>();
+        manager.flushScores();
+        manager.withReader("syncSummary", connection -> {
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT name, debut_date, members, agency, latest_album, status, popularity_score FROM groups")) {
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                    hashes.add(rowHash(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                            rs.getString(5), rs.getString(6), rs.getInt(7)));
+                }
+            }
+            return null;
+        });
+        return new Summary(buckets, names, hashes);
+    }
+
+    /**
+     * Compares two summaries built with the same number of buckets.
+     *
+     * @param from summary of the database to copy from
+     * @param to summary of the database to bring up to date
+     * @return the names to copy and to delete
+     */
+    public static Diff diff(Summary from, Summary to) {
+        if (from.buckets != to.buckets) throw new IllegalArgumentException("Summaries have different bucket counts.");
+        Diff diff = new Diff();
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(1);
+        while (!pending.isEmpty()) {
+            int node = pending.pop();
+            diff.comparedNodes++;
+            if (from.nodes[node] == to.nodes[node]) continue;
+            if (node < from.buckets) {
+                pending.push(2 * node + 1);
+                pending.push(2 * node);
+                continue;
+            }
+
+            int bucket = node - from.buckets;
+            Map<String, Long> wanted = from.bucketContents(bucket);
+            Map<String, Long> present = to.bucketContents(bucket);
+            for (Map.Entry<String, Long> entry : wanted.entrySet()) {
+                if (!entry.getValue().equals(present.get(entry.getKey()))) diff.upserts.add(entry.getKey());
+            }
+            for (String name : present.keySet()) {
+                if (!wanted.containsKey(name)) diff.deletes.add(name);
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Summarizes both databases and finds the groups that differ, without changing anything.
+     *
+     * @return the differences, or null if a database could not be read
+     */
+    public Diff compare() {
+        try {
+            int buckets = bucketsFor(Math.max(source.countGroups(), target.countGroups()));
+            return diff(summarize(source, buckets), summarize(target, buckets));
+        } catch (SQLException e) {
+            System.out.println("Error comparing databases: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Finds the groups that differ and copies them to the target in one transaction.
+     * Groups are read from the source again just before copying, so changes made in between are included.
+     *
+     * @return the differences that were applied, or null if the sync failed and the target was not changed
+     */
+    public Diff sync() {
+        Diff diff = compare();
+        if (diff == null || diff.isEmpty()) return diff;
+
+        List<KPopGroup> upserts = new ArrayList<>(diff.upserts.size());
+        List<String> deletes = new ArrayList<>(diff.deletes);
+        for (String name : diff.upserts) {
+            KPopGroup group = source.getGroup(name);
+            if (group != null) {
+                upserts.add(group);
+            } else {
+                deletes.add(name);
+            }
+        }
+        return target.applyChanges(upserts, deletes) ? diff : null;
+    }
+
+    /**
+     * Chooses a power-of-two bucket count giving about {@value #GROUPS_PER_BUCKET} groups per bucket.
+     *
+     * @param groups number of groups in the larger database
+     * @return the number of buckets
+     */
+    public static int bucketsFor(int groups) {
+        int wanted = Math.max(1, Math.min(MAX_BUCKETS, groups / GROUPS_PER_BUCKET));
+        return Integer.highestOneBit(wanted) == wanted ? wanted : Integer.highestOneBit(wanted) << 1;
+    }
+
+    /**
+     * Hashes every column of a group. Fields are separated by a byte that never appears in UTF-8 text,
+     * so moving characters from one field to the next changes the hash.
+     */
+    static long rowHash(String name, String debutDate, String members, String agency, String latestAlbum, String status, int score) {
+        long hash = 0xcbf29ce484222325L;
+        for (String field : new String[]{name, debutDate, members, agency, latestAlbum, status}) {
+            if (field != null) {
+                for (byte b : field.getBytes(StandardCharsets.UTF_8)) hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+            }
+            hash = (hash ^ (field == null ? 0xFE : 0xFF)) * 0x100000001b3L;
+        }
+        hash = (hash ^ score) * 0x100000001b3L;
+        return mix(hash);
+    }
+
+    private static int bucket(String name, int buckets) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+        return (int) (mix(hash) >>> 32) & (buckets - 1);
+    }
+
+    /** Spreads the bits of a hash so that sums of hashes stay well distributed. */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Syncs one database file into another from the command line.
+     *
+     * @param args the source database, the target database, and optionally --dry-run to only list the differences
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: java KPopSync <source.db> <target.db> [--dry-run]");
+            return;
+        }
+        KPopDatabaseManager from = new KPopDatabaseManager();
+        KPopDatabaseManager to = new KPopDatabaseManager();
+        try {
+            if (!from.connect(args[0]) || !to.connect(args[1])) return;
+            KPopSync sync = new KPopSync(from, to);
+            boolean dryRun = args.length > 2 && args[2].equals("--dry-run");
+            Diff diff = dryRun ? sync.compare() : sync.sync();
+            if (diff == null) {
+                System.out.println("Sync failed.");
+                return;
+            }
+            System.out.println((dryRun ? "Would apply: " : "Applied: ") + diff);
+            if (dryRun) {
+                for (String name : diff.getUpserts()) System.out.println("  upsert " + name);
+                for (String name : diff.getDeletes()) System.out.println("  delete " + name);
+            }
+        } finally {
+            from.close();
+            to.close();
+        }
+    }
+}
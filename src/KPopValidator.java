@@ -0,0 +1,297 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks and parses the fields of a group as they are typed in or read from a file.
+ * Shared by the console menu, the GUI and the importers so they all accept the same input.
+ *
+ * Every method is static and keeps no state, so the validator can be used from any number of
+ * threads at once. Dates are checked character by character without creating objects, and
+ * member lists are split in one pass over the text. Problems are returned in a
+ * {@link Result} instead of being thrown, which keeps rejecting bad rows cheap during bulk loads.
+ */
+public final class KPopValidator {
+    /** Returned by {@link #toEpochDay(CharSequence)} for text that is not a valid date. */
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    private KPopValidator() {
+    }
+
+    /**
+     * A problem with one field of a group.
+     */
+    public static final class FieldError {
+        private final String field;
+        private final String message;
+
+        FieldError(String field, String message) {
+            this.field = field;
+            this.message = message;
+        }
+
+        /**
+         * @return the column name of the field, e.g. "debut_date"
+         */
+        public String getField() {
+            return field;
+        }
+
+        /**
+         * @return what is wrong with the field
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return field + ": " + message;
+        }
+    }
+
+    /**
+     * The outcome of validating a group: either the parsed group or the list of problems found.
+     */
+    public static final class Result {
+        private final KPopGroup group;
+        private final List<FieldError> errors;
+
+        private Result(KPopGroup group, List<FieldError> errors) {
+            this.group = group;
+            this.errors = errors;
+        }
+
+        /**
+         * @return true if no problems were found
+         */
+        public boolean isValid() {
+            return errors.isEmpty();
+        }
+
+        /**
+         * @return the parsed group with its fields trimmed and its status in canonical form, or null if invalid
+         */
+        public KPopGroup getGroup() {
+            return group;
+        }
+
+        /**
+         * @return every problem found, in field order; empty if the group is valid
+         */
+        public List<FieldError> getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return the problems joined into one line, suitable for an error message
+         */
+        public String describeErrors() {
+            StringBuilder text = new StringBuilder();
+            for (FieldError error : errors) {
+                if (text.length() > 0) text.append("; ");
+                text.append(error);
+            }
+            return text.toString();
+        }
+
+        @Override
+        public String toString() {
+            return isValid() ? "valid " + group.name : describeErrors();
+        }
+    }
+
+    /**
+     * Checks that text is a real calendar date in strict YYYY-MM-DD format, including leap days.
+     *
+     * @param text the text to check; null is not a date
+     * @return true if the text is a valid date
+     */
+    public static boolean isValidDate(CharSequence text) {
+        return toEpochDay(text) != NO_DATE;
+    }
+
+    /**
+     * Parses a strict YYYY-MM-DD date into days since 1970-01-01 without creating any objects.
+     *
+     * @param text the text to parse; null is not a date
+     * @return the epoch day, or {@link #NO_DATE} if the text is not a valid date
+     */
+    public static int toEpochDay(CharSequence text) {
+        if (text == null || text.length() != 10 || text.charAt(4) != '-' || text.charAt(7) != '-') return NO_DATE;
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) return NO_DATE;
+
+        // Days from civil date, counting years from March so the leap day is the last day of a year
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Parses a status, ignoring case and surrounding spaces.
+     *
+     * @param text active, disbanded or hiatus
+     * @return the status, or null if the text is not a known status
+     */
+    public static KPopGroupStatus parseStatus(String text) {
+        return text == null ? null : KPopGroupStatus.fromString(text.trim());
+    }
+
+    /**
+     * Splits a comma-separated member list in one pass, trimming every name and skipping empty ones.
+     *
+     * @param text the member names, e.g. "Jisoo, Jennie, Rose, Lisa"; may be null
+     * @return the names in order; empty if there are none
+     */
+    public static List<String> splitMembers(String text) {
+        List<String> members = new ArrayList<>();
+        if (text == null) return members;
+        int length = text.length();
+        int start = 0;
+        while (start <= length) {
+            int end = start;
+            while (end < length && text.charAt(end) != ',') end++;
+            int from = start;
+            int to = end;
+            while (from < to && text.charAt(from) <= ' ') from++;
+            while (to > from && text.charAt(to - 1) <= ' ') to--;
+            if (from < to) members.add(text.substring(from, to));
+            start = end + 1;
+        }
+        return members;
+    }
+
+    /**
+     * Validates a group given as the text of its fields, as typed into a form or read from a CSV line.
+     *
+     * @param name the group's name; required
+     * @param debutDate debut date in YYYY-MM-DD format; required
+     * @param members comma-separated member names
+     * @param agency the agency, may be empty
+     * @param latestAlbum the latest album, may be empty
+     * @param status active, disbanded or hiatus; required
+     * @param popularityScore the score as a whole number; required
+     * @return the parsed group, or every problem found
+     */
+    public static Result validate(String name, String debutDate, String members, String agency,
+                                  String latestAlbum, String status, String popularityScore) {
+        List<FieldError> errors = new ArrayList<>(0);
+        String trimmedName = trim(name);
+        if (trimmedName.isEmpty()) errors.add(new FieldError("name", "is required"));
+        String date = trim(debutDate);
+        if (!isValidDate(date)) errors.add(new FieldError("debut_date", "expected a date in YYYY-MM-DD format"));
+        KPopGroupStatus parsedStatus = parseStatus(status);
+        if (parsedStatus == null) errors.add(new FieldError("status", "expected active, disbanded or hiatus"));
+        long score = parseScore(popularityScore);
+        if (score == Long.MIN_VALUE) errors.add(scoreError());
+        if (!errors.isEmpty()) return new Result(null, Collections.unmodifiableList(errors));
+
+        return new Result(new KPopGroup(trimmedName, date, splitMembers(members), trim(agency), trim(latestAlbum),
+                parsedStatus.toString(), (int) score), Collections.emptyList());
+    }
+
+    /**
+     * Validates a group that has already been built, for example from a JSON object.
+     * Members, agency and latest album are normalized as the text overload does: every member
+     * entry is split at commas and trimmed, and null or empty names are dropped.
+     *
+     * @param group the group to check
+     * @return the group with its fields normalized, or every problem found
+     */
+    public static Result validate(KPopGroup group) {
+        List<FieldError> errors = new ArrayList<>(0);
+        String name = trim(group.name);
+        if (name.isEmpty()) errors.add(new FieldError("name", "is required"));
+        String date = trim(group.debutDate);
+        if (!isValidDate(date)) errors.add(new FieldError("debut_date", "expected a date in YYYY-MM-DD format"));
+        KPopGroupStatus status = parseStatus(group.status);
+        if (status == null) errors.add(new FieldError("status", "expected active, disbanded or hiatus"));
+        if (!errors.isEmpty()) return new Result(null, Collections.unmodifiableList(errors));
+
+        List<String> members = new ArrayList<>(group.members == null ? 0 : group.members.size());
+        if (group.members != null) {
+            for (String member : group.members) members.addAll(splitMembers(member));
+        }
+        group.name = name;
+        group.debutDate = date;
+        group.members = members;
+        group.agency = trim(group.agency);
+        group.latestAlbum = trim(group.latestAlbum);
+        group.status = status.toString();
+        return new Result(group, Collections.emptyList());
+    }
+
+    /**
+     * Reads a score given as a parsed JSON value, either a number or text.
+     *
+     * @return the score, or Long.MIN_VALUE if the value is not a whole number that fits in an int
+     */
+    static long parseScoreValue(Object value) {
+        if (value instanceof Long || value instanceof Integer) {
+            long score = ((Number) value).longValue();
+            return score < Integer.MIN_VALUE || score > Integer.MAX_VALUE ? Long.MIN_VALUE : score;
+        }
+        if (value instanceof Number) {
+            double score = ((Number) value).doubleValue();
+            boolean whole = score == Math.rint(score) && score >= Integer.MIN_VALUE && score <= Integer.MAX_VALUE;
+            return whole ? (long) score : Long.MIN_VALUE;
+        }
+        return value == null ? Long.MIN_VALUE : parseScore(value.toString());
+    }
+
+    /**
+     * @return the error reported for a score that is not a whole number
+     */
+    static FieldError scoreError() {
+        return new FieldError("popularity_score", "expected a whole number");
+    }
+
+    /**
+     * Parses a whole number with an optional sign, ignoring surrounding spaces.
+     *
+     * @return the number, or Long.MIN_VALUE if the text is not a number that fits in an int
+     */
+    static long parseScore(String text) {
+        if (text == null) return Long.MIN_VALUE;
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') start++;
+        while (end > start && text.charAt(end - 1) <= ' ') end--;
+        boolean negative = start < end && text.charAt(start) == '-';
+        if (start < end && (negative || text.charAt(start) == '+')) start++;
+        if (start == end || end - start > 10) return Long.MIN_VALUE;
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return Long.MIN_VALUE;
+            value = value * 10 + digit;
+        }
+        if (negative) value = -value;
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? Long.MIN_VALUE : value;
+    }
+
+    private static int digits(CharSequence text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    private static String trim(String text) {
+        return text == null ? "" : text.trim();
+    }
+}
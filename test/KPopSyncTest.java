@@ -0,0 +1,115 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Syncs one database file into another and checks that the target ends up with the same
+ * groups, and that its change log, listeners and versions describe the target's own rows.
+ */
+class KPopSyncTest {
+    private static final int GROUPS = 5000;
+
+    @TempDir
+    Path dir;
+
+    private KPopDatabaseManager source;
+    private KPopDatabaseManager target;
+
+    @BeforeEach
+    void openDatabases() {
+        source = new KPopDatabaseManager();
+        target = new KPopDatabaseManager();
+        assertTrue(source.connect(dir.resolve("source.db").toString()));
+        assertTrue(target.connect(dir.resolve("target.db").toString()));
+
+        List<KPopGroup> groups = new ArrayList<>();
+        for (int i = 0; i < GROUPS; i++) groups.add(group("Group " + i, i % 101));
+        assertEquals(GROUPS, source.importGroups(copies(groups).iterator()).getImported());
+        assertEquals(GROUPS, target.importGroups(copies(groups).iterator()).getImported());
+    }
+
+    @AfterEach
+    void closeDatabases() {
+        source.close();
+        target.close();
+    }
+
+    @Test
+    void identicalDatabasesHaveNothingToSync() {
+        KPopSync.Diff diff = new KPopSync(source, target).compare();
+        assertNotNull(diff);
+        assertTrue(diff.isEmpty(), diff.toString());
+    }
+
+    @Test
+    void syncAppliesOnlyTheDifferences() {
+        // Several versions ahead on the source, so its versions differ from the target's
+        for (int score = 1; score <= 3; score++) assertTrue(source.updateScore("Group 7", score));
+        assertTrue(source.deleteGroup("Group 8"));
+        assertTrue(source.addGroup(group("Brand New", 55)));
+        assertTrue(target.addGroup(group("Only On Target", 10)));
+
+        KPopSync sync = new KPopSync(source, target);
+        KPopSync.Diff diff = sync.compare();
+        assertEquals(List.of("Brand New", "Group 7"), sorted(diff.getUpserts()));
+        assertEquals(List.of("Group 8", "Only On Target"), sorted(diff.getDeletes()));
+
+        assertNotNull(sync.sync());
+        assertTrue(sync.compare().isEmpty());
+        assertEquals(3, target.getGroup("Group 7").popularityScore);
+        assertNull(target.getGroup("Group 8"));
+        assertNull(target.getGroup("Only On Target"));
+        assertEquals(GROUPS, target.countGroups());
+    }
+
+    @Test
+    void targetLogsAndReportsItsOwnVersions() {
+        for (int score = 1; score <= 3; score++) assertTrue(source.updateScore("Group 7", score));
+        assertTrue(source.addGroup(group("Brand New", 55)));
+        assertEquals(4, source.getGroup("Group 7").version);
+
+        KPopGroupCache cache = new KPopGroupCache(target);
+        assertEquals(1, cache.getGroup("Group 7").version);
+        long lastSeen = target.getLatestChangeSequence();
+        assertNotNull(new KPopSync(source, target).sync());
+
+        KPopGroup stored = target.getGroup("Group 7");
+        assertEquals(2, stored.version);
+        assertEquals(1, target.getGroup("Brand New").version);
+        assertEquals(2, cache.getGroup("Group 7").version);
+        assertEquals(1, cache.getGroup("Brand New").version);
+        for (KPopGroupChange change : target.getChanges(lastSeen, 10)) {
+            assertEquals(target.getGroup(change.getGroupName()).version, change.getAfter().version, change.toString());
+        }
+
+        // A compare-and-set update against the reported version succeeds
+        KPopGroup fromCache = cache.getGroup("Group 7");
+        fromCache.popularityScore = 99;
+        assertTrue(target.updateGroup("Group 7", fromCache, fromCache.version));
+    }
+
+    private static KPopGroup group(String name, int score) {
+        return new KPopGroup(name, "2020-01-01", List.of("A", "B"), "Agency", "Album", "active", score);
+    }
+
+    private static List<KPopGroup> copies(List<KPopGroup> groups) {
+        List<KPopGroup> copies = new ArrayList<>();
+        for (KPopGroup g : groups) copies.add(new KPopGroup(g.name, g.debutDate, g.members, g.agency, g.latestAlbum, g.status, g.popularityScore));
+        return copies;
+    }
+
+    private static List<String> sorted(List<String> names) {
+        List<String> copy = new ArrayList<>(names);
+        copy.sort(null);
+        return copy;
+    }
+}